@@ -0,0 +1,51 @@
+package at.htlle.reserveAndPreorderCookG2.controller;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination for list endpoints: rows are ordered by ID and a page starts after the
+ * last ID of the previous one (?afterId=..&limit=..). The body stays a plain JSON array;
+ * if more rows follow, the ID to continue after is sent in the X-Next-Cursor header.
+ */
+final class KeysetPages {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    private KeysetPages() {
+    }
+
+    /**
+     * Page size to use for a requested limit (default if missing, capped at MAX_LIMIT)
+     */
+    static int limit(Integer requested) {
+        if (requested == null || requested < 1) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    /**
+     * Cursor to start from (IDs are positive, so 0 means "from the beginning")
+     */
+    static long after(Long afterId) {
+        return afterId != null ? afterId : 0L;
+    }
+
+    /**
+     * Build the response from up to limit + 1 rows; the extra row only signals that another page exists
+     */
+    static <T> ResponseEntity<List<T>> respond(List<T> rows, int limit, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return ResponseEntity.ok(rows);
+        }
+        List<T> page = rows.subList(0, limit);
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, String.valueOf(idOf.apply(page.get(limit - 1))))
+                .body(page);
+    }
+}
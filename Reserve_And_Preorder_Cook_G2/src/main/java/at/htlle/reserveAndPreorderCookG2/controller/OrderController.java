@@ -2,7 +2,9 @@ package at.htlle.reserveAndPreorderCookG2.controller;
 
 import at.htlle.reserveAndPreorderCookG2.dto.CreateOrderRequest;
 import at.htlle.reserveAndPreorderCookG2.dto.PreorderRequest;
+import at.htlle.reserveAndPreorderCookG2.service.ArchiveService;
 import at.htlle.reserveAndPreorderCookG2.service.OrderService;
+import at.htlle.reserveAndPreorderCookG2.model.ArchivedOrder;
 import at.htlle.reserveAndPreorderCookG2.model.Order;
 import at.htlle.reserveAndPreorderCookG2.model.OrderItem;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,26 +12,38 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPages.NEXT_CURSOR_HEADER)
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final ArchiveService archiveService;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, ArchiveService archiveService) {
         this.orderService = orderService;
+        this.archiveService = archiveService;
     }
 
     /**
-     * Get all orders
+     * Get orders page by page, ordered by ID (see KeysetPages)
+     * Example: /api/orders?afterId=200&limit=100 - all=true returns the complete list in one response
      */
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<List<Order>> getAllOrders(@RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(orderService.getAllOrders());
+        }
+        int pageSize = KeysetPages.limit(limit);
+        return KeysetPages.respond(orderService.getOrdersAfter(KeysetPages.after(afterId), pageSize + 1),
+                pageSize, Order::getId);
     }
 
     /**
@@ -56,6 +70,35 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getOrdersByStatus(status));
     }
 
+    /**
+     * Get archived (finished, older) orders by order date, both days inclusive
+     * Example: /api/orders/archive?from=2025-01-01&to=2025-03-31
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<List<ArchivedOrder>> getArchivedOrders(@RequestParam LocalDate from,
+                                                                 @RequestParam LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(archiveService.getArchivedOrders(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Get archived orders of a reservation
+     */
+    @GetMapping("/archive/reservation/{reservationId}")
+    public ResponseEntity<List<ArchivedOrder>> getArchivedOrdersByReservation(@PathVariable Long reservationId) {
+        return ResponseEntity.ok(archiveService.getArchivedOrdersByReservation(reservationId));
+    }
+
+    /**
+     * Run the archiver now instead of waiting for the nightly run
+     */
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String, Integer>> runArchiver() {
+        return ResponseEntity.ok(Map.of("archived", archiveService.archiveFinishedOrders()));
+    }
+
     /**
      * Get single order by ID
      */
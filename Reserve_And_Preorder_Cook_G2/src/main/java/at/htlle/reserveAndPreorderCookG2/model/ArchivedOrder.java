@@ -0,0 +1,121 @@
+package at.htlle.reserveAndPreorderCookG2.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finished order (SERVED or CANCELLED) moved out of the orders table by the archiver.
+ * Same columns as {@link Order} plus the time it was archived; rows are only written by the archiver.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_time", columnList = "order_date_time"),
+        @Index(name = "idx_orders_archive_reservation", columnList = "reservation_id")
+})
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Column(name = "table_number", length = 10)
+    private String tableNumber;
+
+    // Items of a whole result list are loaded with one IN query
+    @OneToMany
+    @JoinColumn(name = "order_id", insertable = false, updatable = false)
+    @BatchSize(size = 100)
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+
+    @Column(name = "order_date_time")
+    private LocalDateTime orderDateTime;
+
+    @Column(name = "total_price", precision = 10, scale = 2)
+    private BigDecimal totalPrice;
+
+    @Column(name = "status", length = 30)
+    private String status;
+
+    @Column(name = "is_preorder")
+    private boolean isPreorder;
+
+    @Column(name = "special_requests", columnDefinition = "TEXT")
+    private String specialRequests;
+
+    @Column(name = "delivery_time")
+    private LocalDateTime deliveryTime;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Constructors
+    protected ArchivedOrder() {}
+
+    // Getters (archived rows are read-only)
+    public Long getId() {
+        return id;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public String getTableNumber() {
+        return tableNumber;
+    }
+
+    public List<ArchivedOrderItem> getItems() {
+        return items;
+    }
+
+    public LocalDateTime getOrderDateTime() {
+        return orderDateTime;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isPreorder() {
+        return isPreorder;
+    }
+
+    public String getSpecialRequests() {
+        return specialRequests;
+    }
+
+    public LocalDateTime getDeliveryTime() {
+        return deliveryTime;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
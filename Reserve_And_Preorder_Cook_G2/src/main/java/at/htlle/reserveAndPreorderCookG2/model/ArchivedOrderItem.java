@@ -0,0 +1,70 @@
+package at.htlle.reserveAndPreorderCookG2.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * Item of an archived order (see {@link ArchivedOrder})
+ */
+@Entity
+@Immutable
+@Table(name = "order_items_archive", indexes = {
+        @Index(name = "idx_order_items_archive_order", columnList = "order_id")
+})
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    @Column(name = "quantity", nullable = false)
+    private int quantity;
+
+    @Column(name = "menu_item_id")
+    private Long menuItemId;
+
+    @Column(name = "unit_price", precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(name = "special_instructions", columnDefinition = "TEXT")
+    private String specialInstructions;
+
+    // Constructors
+    protected ArchivedOrderItem() {}
+
+    // Getters (archived rows are read-only)
+    public Long getId() {
+        return id;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public String getSpecialInstructions() {
+        return specialInstructions;
+    }
+}
@@ -2,13 +2,17 @@ package at.htlle.reserveAndPreorderCookG2.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// Status index for the cook views and the archiver
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_time", columnList = "status, order_date_time")
+})
 public class Order {
 
     @Id
@@ -21,7 +25,9 @@ public class Order {
     @Column(name = "table_number", length = 10)
     private String tableNumber;
 
+    // Items of a whole page of orders are loaded with one IN query instead of one query per order
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @JsonManagedReference
     private List<OrderItem> items = new ArrayList<>();
 
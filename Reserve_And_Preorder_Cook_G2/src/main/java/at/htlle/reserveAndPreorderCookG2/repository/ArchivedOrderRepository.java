@@ -0,0 +1,65 @@
+package at.htlle.reserveAndPreorderCookG2.repository;
+
+import at.htlle.reserveAndPreorderCookG2.model.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    String ORDER_COLUMNS = "id, reservation_id, table_number, order_date_time, total_price, status, " +
+            "is_preorder, special_requests, delivery_time, created_at, updated_at";
+
+    String ITEM_COLUMNS = "id, order_id, name, quantity, menu_item_id, unit_price, special_instructions";
+
+    /**
+     * Find archived orders by date range (order time in [from, to))
+     */
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.orderDateTime >= :from AND o.orderDateTime < :to " +
+           "ORDER BY o.orderDateTime, o.id")
+    List<ArchivedOrder> findByDateRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Find archived orders of a reservation
+     */
+    List<ArchivedOrder> findByReservationId(Long reservationId);
+
+    /**
+     * Archiver: copy orders into the archive (set-based, no entities loaded)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (" + ORDER_COLUMNS + ", archived_at) " +
+                   "SELECT " + ORDER_COLUMNS + ", CURRENT_TIMESTAMP FROM orders WHERE id IN (:ids)",
+           nativeQuery = true)
+    int copyOrders(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Archiver: copy the items of these orders into the archive
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_items_archive (" + ITEM_COLUMNS + ") " +
+                   "SELECT " + ITEM_COLUMNS + " FROM order_items WHERE order_id IN (:ids)",
+           nativeQuery = true)
+    int copyItems(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Archiver: remove copied items from the hot table
+     */
+    @Modifying
+    @Query(value = "DELETE FROM order_items WHERE order_id IN (:ids)", nativeQuery = true)
+    int deleteItems(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Archiver: remove copied orders from the hot table
+     */
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE id IN (:ids)", nativeQuery = true)
+    int deleteOrders(@Param("ids") Collection<Long> ids);
+}
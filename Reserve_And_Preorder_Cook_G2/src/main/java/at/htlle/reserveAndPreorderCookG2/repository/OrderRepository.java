@@ -1,10 +1,14 @@
 package at.htlle.reserveAndPreorderCookG2.repository;
 
 import at.htlle.reserveAndPreorderCookG2.model.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -46,4 +50,16 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * Find orders ready for serving
      */
     List<Order> findByStatusOrderByOrderDateTimeAsc(String status);
+
+    /**
+     * Keyset pagination: next orders after the given ID
+     */
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Archiver: next finished orders that are due for the archive
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.orderDateTime < :cutoff ORDER BY o.id")
+    List<Long> findIdsToArchive(@Param("statuses") Collection<String> statuses,
+                                @Param("cutoff") LocalDateTime cutoff, Limit limit);
 }
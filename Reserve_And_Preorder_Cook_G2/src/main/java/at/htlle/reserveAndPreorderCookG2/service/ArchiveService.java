@@ -0,0 +1,100 @@
+package at.htlle.reserveAndPreorderCookG2.service;
+
+import at.htlle.reserveAndPreorderCookG2.enums.OrderStatus;
+import at.htlle.reserveAndPreorderCookG2.model.ArchivedOrder;
+import at.htlle.reserveAndPreorderCookG2.repository.ArchivedOrderRepository;
+import at.htlle.reserveAndPreorderCookG2.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hot/archive tiering: SERVED and CANCELLED orders older than reap.archive.after-days are moved
+ * (together with their items) from orders/order_items into orders_archive/order_items_archive.
+ * Rows are moved in chunks, one transaction per chunk. Archived orders are only returned by the archive queries.
+ */
+@Service
+public class ArchiveService {
+
+    // Orders in these states never change again
+    public static final List<String> FINISHED_STATES = List.of(OrderStatus.SERVED.name(), OrderStatus.CANCELLED.name());
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate chunkTransaction;
+    private final int afterDays;
+    private final int chunkSize;
+
+    @Autowired
+    public ArchiveService(OrderRepository orderRepository,
+                          ArchivedOrderRepository archivedOrderRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${reap.archive.after-days:90}") int afterDays,
+                          @Value("${reap.archive.chunk-size:500}") int chunkSize) {
+        this.orderRepository = orderRepository;
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.afterDays = afterDays;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Nightly archive run (time configurable via reap.archive.cron)
+     */
+    @Scheduled(cron = "${reap.archive.cron:0 45 3 * * *}")
+    public void archiveNightly() {
+        archiveFinishedOrders();
+    }
+
+    /**
+     * Move all finished orders older than the configured age into the archive
+     * @return number of archived orders
+     */
+    public int archiveFinishedOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+        int moved;
+        do {
+            moved = chunkTransaction.execute(status -> archiveChunk(cutoff));
+            total += moved;
+        } while (moved == chunkSize);
+
+        if (total > 0) {
+            System.out.println("Archived " + total + " finished orders older than " + cutoff.toLocalDate());
+        }
+        return total;
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Long> ids = orderRepository.findIdsToArchive(FINISHED_STATES, cutoff, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedOrderRepository.copyOrders(ids);
+        archivedOrderRepository.copyItems(ids);
+        archivedOrderRepository.deleteItems(ids);
+        archivedOrderRepository.deleteOrders(ids);
+        return ids.size();
+    }
+
+    /**
+     * Get archived orders with an order time in [from, to)
+     */
+    public List<ArchivedOrder> getArchivedOrders(LocalDateTime from, LocalDateTime to) {
+        return archivedOrderRepository.findByDateRange(from, to);
+    }
+
+    /**
+     * Get archived orders of a reservation
+     */
+    public List<ArchivedOrder> getArchivedOrdersByReservation(Long reservationId) {
+        return archivedOrderRepository.findByReservationId(reservationId);
+    }
+}
@@ -5,6 +5,7 @@ import at.htlle.reserveAndPreorderCookG2.model.Order;
 import at.htlle.reserveAndPreorderCookG2.model.OrderItem;
 import at.htlle.reserveAndPreorderCookG2.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +35,13 @@ public class OrderService {
         return orderRepository.findAll();
     }
 
+    /**
+     * Get up to limit orders with an ID greater than afterId, ordered by ID
+     */
+    public List<Order> getOrdersAfter(long afterId, int limit) {
+        return orderRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     /**
      * Get only active orders (PENDING and IN_KITCHEN)
      */
@@ -24,6 +24,9 @@ public class CorsConfig {
         // Allow all headers
         config.setAllowedHeaders(Arrays.asList("*"));
 
+        // Let browser clients read the keyset pagination cursor
+        config.setExposedHeaders(Arrays.asList("X-Next-Cursor"));
+
         // Allow credentials (cookies, authorization headers)
         config.setAllowCredentials(true);
 
@@ -0,0 +1,52 @@
+package at.htlle.reap.config;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Pooled sequence generator (one sequence call per ALLOCATION_SIZE IDs) of all sequence-based entities.
+ * It keeps IDs assigned up front with {@link #nextId}. Reservation needs this: its QR check-in token
+ * is derived from the ID, so the ID is taken before the insert and the row is written with a single INSERT.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    // Number of IDs handed out per sequence call
+    public static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        // One sequence per table: reservations -> reservations_seq
+        parameters.setProperty(SEQUENCE_PARAM, parameters.getProperty(TABLE) + "_seq");
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(ALLOCATION_SIZE));
+        parameters.setProperty(OPT_PARAM, "pooled");
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner,
+                           Object currentValue, EventType eventType) {
+        return currentValue != null ? currentValue : generate(session, owner);
+    }
+
+    /**
+     * Take the next ID for a new entity from the same pool Hibernate uses on persist
+     */
+    public static Long nextId(EntityManager entityManager, Object entity) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator =
+                (BeforeExecutionGenerator) session.getEntityPersister(null, entity).getGenerator();
+        return (Long) generator.generate(session, entity, null, EventType.INSERT);
+    }
+}
@@ -0,0 +1,52 @@
+package at.htlle.reap.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the ID sequences past IDs that were generated before the switch from IDENTITY columns
+ * to pooled sequences, so existing databases keep working without manual migration.
+ */
+@Component
+public class SequenceAlignment {
+
+    // Block size of the @PooledSequence IDs (Reservation, Table, GroupMember)
+    private static final int ALLOCATION_SIZE = PooledSequenceGenerator.ALLOCATION_SIZE;
+
+    // sequence -> table whose IDs it generates (one per @PooledSequence entity)
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "reservations_seq", "reservations",
+            "tables_seq", "tables",
+            "group_members_seq", "group_members"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory dependency makes sure Hibernate has created the schema first
+    @Autowired
+    public SequenceAlignment(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        SEQUENCES.forEach((sequence, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Long nextValue = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?",
+                    Long.class, sequence.toUpperCase());
+
+            // The pooled optimizer hands out [value - ALLOCATION_SIZE + 1, value] for each sequence value
+            long required = maxId + ALLOCATION_SIZE;
+            if (nextValue == null || nextValue < required) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + required);
+                System.out.println("Aligned " + sequence + " to start after existing id " + maxId);
+            }
+        });
+    }
+}
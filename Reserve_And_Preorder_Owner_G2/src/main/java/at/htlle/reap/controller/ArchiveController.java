@@ -0,0 +1,70 @@
+package at.htlle.reap.controller;
+
+import at.htlle.reap.model.ArchivedReservation;
+import at.htlle.reap.service.ArchiveService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reporting access to archived (finished, older) reservations
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/reservations/archive")
+public class ArchiveController {
+
+    private final ArchiveService archiveService;
+
+    @Autowired
+    public ArchiveController(ArchiveService archiveService) {
+        this.archiveService = archiveService;
+    }
+
+    /**
+     * Get archived reservations by reservation date (both days inclusive)
+     * Example: /api/reservations/archive?from=2025-01-01&to=2025-03-31
+     */
+    @GetMapping
+    public ResponseEntity<List<ArchivedReservation>> getArchivedReservations(@RequestParam LocalDate from,
+                                                                             @RequestParam LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(archiveService.getArchivedReservations(from.atStartOfDay(),
+                to.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Get archived reservation by ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ArchivedReservation> getArchivedReservationById(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(archiveService.getArchivedReservationById(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Get archived reservations by customer ID
+     */
+    @GetMapping("/customer/{customerId}")
+    public ResponseEntity<List<ArchivedReservation>> getArchivedReservationsByCustomerId(
+            @PathVariable Long customerId) {
+        return ResponseEntity.ok(archiveService.getArchivedReservationsByCustomerId(customerId));
+    }
+
+    /**
+     * Run the archiver now instead of waiting for the nightly run
+     */
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Integer>> runArchiver() {
+        return ResponseEntity.ok(Map.of("archived", archiveService.archiveFinishedReservations()));
+    }
+}
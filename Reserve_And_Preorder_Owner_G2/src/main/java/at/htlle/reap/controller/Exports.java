@@ -0,0 +1,46 @@
+package at.htlle.reap.controller;
+
+import at.htlle.reap.enums.ExportFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Response setup for the export endpoints: the rows are written straight to the response
+ * output stream, so status and headers have to be set before the first row.
+ */
+final class Exports {
+
+    private Exports() {
+    }
+
+    /**
+     * Validate the request and set the download headers
+     * @return the export format, or null if the request was rejected (400 already sent)
+     */
+    static ExportFormat start(HttpServletResponse response, String name, LocalDate from, LocalDate to,
+                              String format) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown export format: " + format);
+            return null;
+        }
+        if (to.isBefore(from)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "'to' must not be before 'from'");
+            return null;
+        }
+
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(name + "_" + from + "_" + to + "." + exportFormat.getFileExtension())
+                .build().toString());
+        return exportFormat;
+    }
+}
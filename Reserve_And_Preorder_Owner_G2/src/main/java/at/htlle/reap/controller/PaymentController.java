@@ -1,13 +1,18 @@
 package at.htlle.reap.controller;
 
+import at.htlle.reap.enums.ExportFormat;
 import at.htlle.reap.enums.PaymentStatus;
 import at.htlle.reap.model.Payment;
+import at.htlle.reap.service.ExportService;
 import at.htlle.reap.service.PaymentService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -16,10 +21,12 @@ import java.util.Map;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final ExportService exportService;
 
     @Autowired
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService, ExportService exportService) {
         this.paymentService = paymentService;
+        this.exportService = exportService;
     }
 
     /**
@@ -105,11 +112,36 @@ public class PaymentController {
     }
 
     /**
-     * Get all payments
+     * Get payments page by page, ordered by ID (see KeysetPages)
+     * Example: /api/payments?afterId=200&limit=100 - all=true returns the complete list in one response
      */
     @GetMapping
-    public ResponseEntity<List<Payment>> getAllPayments() {
-        return ResponseEntity.ok(paymentService.getAllPayments());
+    public ResponseEntity<List<Payment>> getAllPayments(@RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(paymentService.getAllPayments());
+        }
+        int pageSize = KeysetPages.limit(limit);
+        return KeysetPages.respond(paymentService.getPaymentsAfter(KeysetPages.after(afterId), pageSize + 1),
+                pageSize, Payment::getId);
+    }
+
+    /**
+     * Export payments for accounting by creation date, streamed row by row (format ndjson or csv)
+     * Example: /api/payments/export?from=2026-01-01&to=2026-03-31&format=csv - both days inclusive
+     */
+    @GetMapping("/export")
+    public void exportPayments(@RequestParam LocalDate from, @RequestParam LocalDate to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = Exports.start(response, "payments", from, to, format);
+        if (exportFormat == null) {
+            return;
+        }
+        long rows = exportService.exportPayments(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                exportFormat, response.getOutputStream());
+        System.out.println("Exported " + rows + " payments (" + from + " - " + to + ", " + exportFormat + ")");
     }
 
     /**
@@ -1,54 +1,178 @@
 package at.htlle.reap.controller;
 
+import at.htlle.reap.enums.QRImageFormat;
 import at.htlle.reap.model.Reservation;
 import at.htlle.reap.service.QRCodeService;
 import at.htlle.reap.service.ResService;
+import at.htlle.reap.service.UsedCheckinTokens;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @RestController
 @RequestMapping("/api/qr")
 public class QRCodeController {
 
+    private static final String BASE_URL = "http://localhost:8083";
+
+    // Browser cache lifetime of QR images before revalidation
+    private static final Duration IMAGE_MAX_AGE = Duration.ofMinutes(10);
+
     private final QRCodeService qrCodeService;
     private final ResService resService;
+    private final UsedCheckinTokens usedTokens;
 
     @Autowired
-    public QRCodeController(QRCodeService qrCodeService, ResService resService) {
+    public QRCodeController(QRCodeService qrCodeService, ResService resService, UsedCheckinTokens usedTokens) {
         this.qrCodeService = qrCodeService;
         this.resService = resService;
+        this.usedTokens = usedTokens;
     }
 
     /**
      * Get QR code for a reservation
-     * Returns the QR code as Base64 image and the check-in URL
+     * Returns the QR code as Base64 image and the check-in URL (both of the stored token)
+     * An expired stored token is replaced on the way (see ResService.getCheckinToken); 404 for an unknown guest
+     * Image formats: png (300x300, default), png_1bit or svg with moduleSize pixels/units per module
+     * Example: /api/qr/reservation/123?format=svg&moduleSize=4
      */
     @GetMapping("/reservation/{reservationId}")
     public ResponseEntity<QRCodeService.QRCodeData> getReservationQRCode(
             @PathVariable Long reservationId,
-            @RequestParam(required = false) Long guestId) {
+            @RequestParam(required = false) Long guestId,
+            @RequestParam(defaultValue = "png") String format,
+            @RequestParam(defaultValue = "" + QRCodeService.DEFAULT_MODULE_SIZE) int moduleSize) {
+
+        QRImageFormat imageFormat = parseFormat(format, moduleSize);
+        if (imageFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
 
         try {
-            // Verify reservation exists
-            Reservation reservation = resService.getReservationById(reservationId);
+            // Stored token of the reservation (fails if the reservation or the guest does not exist)
+            String token = resService.getCheckinToken(reservationId, guestId);
 
-            // Generate QR code
-            String baseUrl = "http://localhost:8083";
-            QRCodeService.QRCodeData qrData = qrCodeService.generateCheckinQRCode(
-                    baseUrl, reservationId, guestId
-            );
+            return ResponseEntity.ok(qrCodeService.getCheckinQRCode(BASE_URL, token, imageFormat, moduleSize));
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Get the QR code of a reservation as image (PNG or SVG, see getReservationQRCode for the formats)
+     * The image is rendered once per token; browsers revalidate with If-None-Match and get 304
+     * Example: <img src="/api/qr/reservation/123/image?guestId=2&format=png_1bit&moduleSize=6">
+     */
+    @GetMapping("/reservation/{reservationId}/image")
+    public ResponseEntity<byte[]> getReservationQRImage(
+            @PathVariable Long reservationId,
+            @RequestParam(required = false) Long guestId,
+            @RequestParam(defaultValue = "png") String format,
+            @RequestParam(defaultValue = "" + QRCodeService.DEFAULT_MODULE_SIZE) int moduleSize,
+            WebRequest request) {
+
+        QRImageFormat imageFormat = parseFormat(format, moduleSize);
+        if (imageFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            String token = resService.getCheckinToken(reservationId, guestId);
+            QRCodeService.QRImage image = qrCodeService.getQRCodeImage(
+                    qrCodeService.getCheckinUrl(BASE_URL, token), imageFormat, moduleSize);
 
-            return ResponseEntity.ok(qrData);
+            // The token can be replaced (e.g. after expiry), so browsers check the ETag after IMAGE_MAX_AGE
+            if (request.checkNotModified(image.getETag())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(image.getContentType()))
+                    .eTag(image.getETag())
+                    .cacheControl(CacheControl.maxAge(IMAGE_MAX_AGE).cachePrivate())
+                    .body(image.getData());
 
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Get the QR codes of all guests of a group reservation as one ZIP file
+     * (reservation-<id>-guest-1.png .. reservation-<id>-guest-n.png, in guest order; .svg for format=svg)
+     * Missing images are rendered in parallel, already rendered ones come from the cache
+     */
+    @GetMapping(value = "/reservation/{reservationId}/group", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> getGroupQRCodes(
+            @PathVariable Long reservationId,
+            @RequestParam(defaultValue = "png") String format,
+            @RequestParam(defaultValue = "" + QRCodeService.DEFAULT_MODULE_SIZE) int moduleSize) {
+
+        QRImageFormat imageFormat = parseFormat(format, moduleSize);
+        if (imageFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<QRCodeService.QRImage> images;
+        try {
+            List<String> urls = resService.getGroupCheckinTokens(reservationId).stream()
+                    .map(token -> qrCodeService.getCheckinUrl(BASE_URL, token))
+                    .toList();
+            if (urls.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            images = qrCodeService.getQRCodeImages(urls, imageFormat, moduleSize);
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            ZipOutputStream zip = new ZipOutputStream(outputStream);
+            // PNG is compressed already, SVG text is not
+            if (imageFormat != QRImageFormat.SVG) {
+                zip.setLevel(Deflater.NO_COMPRESSION);
+            }
+            for (int i = 0; i < images.size(); i++) {
+                zip.putNextEntry(new ZipEntry("reservation-" + reservationId + "-guest-" + (i + 1)
+                        + "." + imageFormat.getFileExtension()));
+                zip.write(images.get(i).getData());
+                zip.closeEntry();
+            }
+            zip.finish();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"reservation-" + reservationId + "-qr-codes.zip\"")
+                .body(body);
+    }
+
+    // Image format of a request parameter, null if the format or the module size is not supported
+    private static QRImageFormat parseFormat(String format, int moduleSize) {
+        if (moduleSize < 1 || moduleSize > QRCodeService.MAX_MODULE_SIZE) {
+            return null;
+        }
+        try {
+            return QRImageFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Validate a QR code token
      */
@@ -77,6 +201,7 @@ public class QRCodeController {
     /**
      * Check-in via QR code scan
      * This endpoint is called when a waiter scans a QR code
+     * Tokens that were already used here are rejected from memory after validation, without a transaction
      */
     @PostMapping("/checkin")
     public ResponseEntity<Map<String, Object>> checkinViaQR(@RequestBody Map<String, String> request) {
@@ -96,9 +221,16 @@ public class QRCodeController {
             ));
         }
 
+        if (usedTokens.isUsed(validation)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Check-in failed",
+                    "message", ResService.ALREADY_CHECKED_IN
+            ));
+        }
+
         try {
             // Check-in the reservation
-            Reservation reservation = resService.checkIn(validation.getReservationId());
+            Reservation reservation = checkIn(validation);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -132,9 +264,13 @@ public class QRCodeController {
             );
         }
 
+        if (usedTokens.isUsed(validation)) {
+            return ResponseEntity.badRequest().body(checkinFailedPage(ResService.ALREADY_CHECKED_IN));
+        }
+
         try {
             // Check-in the reservation
-            Reservation reservation = resService.checkIn(validation.getReservationId());
+            Reservation reservation = checkIn(validation);
 
             return ResponseEntity.ok(
                     "<html><body style='text-align: center; font-family: Arial;'>" +
@@ -147,12 +283,31 @@ public class QRCodeController {
             );
 
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(
-                    "<html><body style='text-align: center; font-family: Arial;'>" +
-                    "<h1 style='color: red;'>✗ Check-In fehlgeschlagen</h1>" +
-                    "<p>" + e.getMessage() + "</p>" +
-                    "</body></html>"
-            );
+            return ResponseEntity.badRequest().body(checkinFailedPage(e.getMessage()));
+        }
+    }
+
+    /**
+     * Check in the reservation of a validated token and remember the token as used,
+     * also if the reservation turns out to be checked in already
+     */
+    private Reservation checkIn(QRCodeService.ValidationResult validation) {
+        try {
+            Reservation reservation = resService.checkIn(validation.getReservationId());
+            usedTokens.markUsed(validation);
+            return reservation;
+        } catch (RuntimeException e) {
+            if (ResService.ALREADY_CHECKED_IN.equals(e.getMessage())) {
+                usedTokens.markUsed(validation);
+            }
+            throw e;
         }
     }
+
+    private static String checkinFailedPage(String message) {
+        return "<html><body style='text-align: center; font-family: Arial;'>" +
+               "<h1 style='color: red;'>✗ Check-In fehlgeschlagen</h1>" +
+               "<p>" + message + "</p>" +
+               "</body></html>";
+    }
 }
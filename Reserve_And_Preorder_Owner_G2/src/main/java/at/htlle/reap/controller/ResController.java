@@ -1,12 +1,22 @@
 package at.htlle.reap.controller;
 
+import at.htlle.reap.enums.ExportFormat;
 import at.htlle.reap.model.Reservation;
+import at.htlle.reap.model.ReservationChanges;
+import at.htlle.reap.model.ReservationSummary;
+import at.htlle.reap.service.ExportService;
+import at.htlle.reap.service.ReservationChangeFeed;
 import at.htlle.reap.service.ResService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
 
@@ -16,18 +26,58 @@ import java.util.Map;
 public class ResController {
 
     private final ResService resService;
+    private final ExportService exportService;
+    private final ReservationChangeFeed changeFeed;
 
     @Autowired
-    public ResController(ResService resService) {
+    public ResController(ResService resService, ExportService exportService, ReservationChangeFeed changeFeed) {
         this.resService = resService;
+        this.exportService = exportService;
+        this.changeFeed = changeFeed;
     }
 
     /**
-     * Get all reservations
+     * Get reservations page by page, ordered by ID (see KeysetPages)
+     * Example: /api/reservations?afterId=200&limit=100 - all=true returns the complete list in one response
+     * List rows are summaries without QR code and group members, the full reservation comes from GET /{id}
      */
     @GetMapping
-    public ResponseEntity<List<Reservation>> getAllReservations() {
-        return ResponseEntity.ok(resService.getAllReservations());
+    public ResponseEntity<List<ReservationSummary>> getAllReservations(@RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(resService.getAllReservations());
+        }
+        int pageSize = KeysetPages.limit(limit);
+        return KeysetPages.respond(resService.getReservationsAfter(KeysetPages.after(afterId), pageSize + 1),
+                pageSize, ReservationSummary::getId);
+    }
+
+    /**
+     * Export reservations for accounting by reservation time, streamed row by row (format ndjson or csv)
+     * Example: /api/reservations/export?from=2026-01-01&to=2026-03-31&format=csv - both days inclusive
+     */
+    @GetMapping("/export")
+    public void exportReservations(@RequestParam LocalDate from, @RequestParam LocalDate to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = Exports.start(response, "reservations", from, to, format);
+        if (exportFormat == null) {
+            return;
+        }
+        long rows = exportService.exportReservations(from.atStartOfDay(), to.plusDays(1).atStartOfDay(),
+                exportFormat, response.getOutputStream());
+        System.out.println("Exported " + rows + " reservations (" + from + " - " + to + ", " + exportFormat + ")");
+    }
+
+    /**
+     * Delta sync: reservations created, updated or removed since the watermark of the previous call
+     * Example: /api/reservations/changes?since=2026-01-20T18:59:55.123 - without since all reservations are returned
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ReservationChanges> getChanges(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        return ResponseEntity.ok(changeFeed.getChanges(since));
     }
 
     /**
@@ -47,7 +97,7 @@ public class ResController {
      * Get reservations by customer ID
      */
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<Reservation>> getReservationsByCustomerId(@PathVariable Long customerId) {
+    public ResponseEntity<List<ReservationSummary>> getReservationsByCustomerId(@PathVariable Long customerId) {
         return ResponseEntity.ok(resService.getReservationsByCustomerId(customerId));
     }
 
@@ -55,7 +105,7 @@ public class ResController {
      * Get reservations by restaurant ID
      */
     @GetMapping("/restaurant/{restaurantId}")
-    public ResponseEntity<List<Reservation>> getReservationsByRestaurantId(@PathVariable Long restaurantId) {
+    public ResponseEntity<List<ReservationSummary>> getReservationsByRestaurantId(@PathVariable Long restaurantId) {
         return ResponseEntity.ok(resService.getReservationsByRestaurantId(restaurantId));
     }
 
@@ -63,7 +113,7 @@ public class ResController {
      * Get active reservations
      */
     @GetMapping("/active")
-    public ResponseEntity<List<Reservation>> getActiveReservations() {
+    public ResponseEntity<List<ReservationSummary>> getActiveReservations() {
         return ResponseEntity.ok(resService.getActiveReservations());
     }
 
@@ -71,10 +121,30 @@ public class ResController {
      * Get reservations by status
      */
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Reservation>> getReservationsByStatus(@PathVariable String status) {
+    public ResponseEntity<List<ReservationSummary>> getReservationsByStatus(@PathVariable String status) {
         return ResponseEntity.ok(resService.getReservationsByStatus(status));
     }
 
+    /**
+     * Get all bookable start times for a party, e.g. to render a calendar
+     * Example: /api/reservations/availability?restaurantId=1&guests=4&from=2026-01-20&days=14
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<Map<LocalDate, List<LocalTime>>> getAvailability(
+            @RequestParam Long restaurantId,
+            @RequestParam int guests,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "120") int durationMinutes) {
+        try {
+            LocalDate start = from != null ? from : LocalDate.now();
+            return ResponseEntity.ok(resService.findFreeSlots(restaurantId, guests, start, days, durationMinutes));
+        } catch (RuntimeException e) {
+            System.err.println("Error searching free slots: " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Create a new reservation
      * Body: { "customerId": 1, "restaurantId": 1, "reservationDateTime": "2026-01-20T19:00", "numberOfGuests": 2 }
@@ -188,16 +258,45 @@ public class ResController {
      * Get potential no-shows
      */
     @GetMapping("/no-shows")
-    public ResponseEntity<List<Reservation>> getPotentialNoShows() {
-        return ResponseEntity.ok(resService.findPotentialNoShows());
+    public ResponseEntity<List<ReservationSummary>> getPotentialNoShows() {
+        return ResponseEntity.ok(resService.getPotentialNoShowSummaries());
+    }
+
+    /**
+     * Mark all overdue reservations as no-show now (same as the scheduled check)
+     */
+    @PostMapping("/no-shows/mark")
+    public ResponseEntity<Map<String, Integer>> markOverdueAsNoShow() {
+        return ResponseEntity.ok(Map.of("markedNoShow", resService.markOverdueAsNoShow()));
     }
 
     /**
      * Get timeout candidates
      */
     @GetMapping("/timeouts")
-    public ResponseEntity<List<Reservation>> getTimeoutCandidates() {
-        return ResponseEntity.ok(resService.findTimeoutCandidates());
+    public ResponseEntity<List<ReservationSummary>> getTimeoutCandidates() {
+        return ResponseEntity.ok(resService.getTimeoutCandidateSummaries());
+    }
+
+    /**
+     * Compare the in-memory availability calendar with the reservations table
+     */
+    @GetMapping("/calendar/check")
+    public ResponseEntity<Map<String, Object>> checkCalendar() {
+        List<Long> mismatches = resService.verifyAvailabilityCalendar();
+        return ResponseEntity.ok(Map.of(
+                "consistent", mismatches.isEmpty(),
+                "mismatchedTables", mismatches
+        ));
+    }
+
+    /**
+     * Rebuild the in-memory availability calendar from the database
+     */
+    @PostMapping("/calendar/rebuild")
+    public ResponseEntity<Void> rebuildCalendar() {
+        resService.rebuildAvailabilityCalendar();
+        return ResponseEntity.noContent().build();
     }
 
     /**
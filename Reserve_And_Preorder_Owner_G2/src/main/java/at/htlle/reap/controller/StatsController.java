@@ -0,0 +1,47 @@
+package at.htlle.reap.controller;
+
+import at.htlle.reap.model.DailyStats;
+import at.htlle.reap.service.DailyStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily statistics per restaurant (bookings, guests, no-shows, cancellations, revenue, dwell time)
+ */
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final DailyStatsService dailyStatsService;
+
+    @Autowired
+    public StatsController(DailyStatsService dailyStatsService) {
+        this.dailyStatsService = dailyStatsService;
+    }
+
+    /**
+     * Get daily statistics of all restaurants (both days inclusive)
+     * Example: /api/stats/daily?from=2025-01-01&to=2025-01-31
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailyStats>> getDailyStats(@RequestParam LocalDate from, @RequestParam LocalDate to) {
+        if (to.isBefore(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(dailyStatsService.getDailyStats(from, to));
+    }
+
+    /**
+     * Recompute the statistics from all reservations (incl. archive) and payments
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuild() {
+        return ResponseEntity.ok(Map.of("restaurantDays", dailyStatsService.rebuild()));
+    }
+}
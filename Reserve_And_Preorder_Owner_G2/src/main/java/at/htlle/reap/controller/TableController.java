@@ -1,9 +1,11 @@
 package at.htlle.reap.controller;
 
 import at.htlle.reap.model.Table;
+import at.htlle.reap.model.TableTurnaround;
 import at.htlle.reap.service.TableService;
 import at.htlle.reap.service.ResService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,11 +26,19 @@ public class TableController {
     }
 
     /**
-     * Get all tables
+     * Get tables page by page, ordered by ID (see KeysetPages)
+     * Example: /api/tables?afterId=200&limit=100 - all=true returns the complete list in one response
      */
     @GetMapping
-    public ResponseEntity<List<Table>> getAllTables() {
-        return ResponseEntity.ok(tableService.getAllTables());
+    public ResponseEntity<List<Table>> getAllTables(@RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean all) {
+        if (all) {
+            return ResponseEntity.ok(tableService.getAllTables());
+        }
+        int pageSize = KeysetPages.limit(limit);
+        return KeysetPages.respond(tableService.getTablesAfter(KeysetPages.after(afterId), pageSize + 1),
+                pageSize, Table::getId);
     }
 
     /**
@@ -39,6 +49,22 @@ public class TableController {
         return ResponseEntity.ok(tableService.getTablesByRestaurant(restaurantId));
     }
 
+    /**
+     * Get turn-around statistics (time from the table being freed until it is occupied again, in seconds) of all tables
+     */
+    @GetMapping("/turnaround")
+    public ResponseEntity<List<TableTurnaround>> getTurnarounds() {
+        return ResponseEntity.ok(tableService.getTurnarounds());
+    }
+
+    /**
+     * Get turn-around statistics of one table
+     */
+    @GetMapping("/{id}/turnaround")
+    public ResponseEntity<TableTurnaround> getTurnaround(@PathVariable Long id) {
+        return ResponseEntity.ok(tableService.getTurnaround(id));
+    }
+
     /**
      * Get single table by ID
      */
@@ -111,18 +137,18 @@ public class TableController {
 
     /**
      * Assign reservation to table
+     * Returns 409 if the table is booked by another reservation during the reserved time window
      */
     @PostMapping("/{id}/assign/{reservationId}")
     public ResponseEntity<Table> assignReservation(
             @PathVariable Long id,
             @PathVariable Long reservationId) {
         try {
-            Table table = tableService.assignReservation(id, reservationId);
-            
-            // Update reservation with tableId
-            resService.updateReservationTable(reservationId, id);
-            
-            return ResponseEntity.ok(table);
+            // Books the table and links it to the reservation in one transaction
+            if (!resService.updateReservationTable(reservationId, id)) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).build();
+            }
+            return ResponseEntity.ok(tableService.getTableById(id));
         } catch (RuntimeException e) {
             System.err.println("Error assigning table: " + e.getMessage());
             return ResponseEntity.badRequest().build();
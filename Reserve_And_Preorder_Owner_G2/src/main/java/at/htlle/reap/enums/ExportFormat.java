@@ -0,0 +1,22 @@
+package at.htlle.reap.enums;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),  // One JSON object per line
+    CSV("text/csv", "csv");                    // Header line plus one row per line
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,23 @@
+package at.htlle.reap.enums;
+
+public enum QRImageFormat {
+    PNG("image/png", "png"),          // RGB PNG of 300x300 pixels (as before)
+    PNG_1BIT("image/png", "png"),     // 1-bit grayscale PNG, module size pixels per module
+    SVG("image/svg+xml", "svg");      // One SVG path, module size units per module
+
+    private final String contentType;
+    private final String fileExtension;
+
+    QRImageFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
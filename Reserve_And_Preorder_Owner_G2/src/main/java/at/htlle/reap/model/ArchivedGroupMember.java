@@ -0,0 +1,62 @@
+package at.htlle.reap.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Group member of an archived reservation (see {@link ArchivedReservation})
+ */
+@Entity
+@Immutable
+@jakarta.persistence.Table(name = "group_members_archive", indexes = {
+        @Index(name = "idx_group_members_archive_reservation", columnList = "reservation_id")
+})
+public class ArchivedGroupMember {
+
+    @Id
+    private Long id;
+
+    @Column(name = "reservation_id", nullable = false)
+    private Long reservationId;
+
+    @Column(name = "guest_name", nullable = false, length = 200)
+    private String guestName;
+
+    @Column(name = "guest_email", length = 255)
+    private String guestEmail;
+
+    @Column(name = "qr_code", columnDefinition = "TEXT")
+    private String qrCode;
+
+    @Column(name = "has_checked_in")
+    private boolean hasCheckedIn;
+
+    // No-arg constructor for JPA
+    protected ArchivedGroupMember() {
+    }
+
+    // Getters (archived rows are read-only)
+    public Long getId() {
+        return id;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public String getGuestName() {
+        return guestName;
+    }
+
+    public String getGuestEmail() {
+        return guestEmail;
+    }
+
+    public String getQrCode() {
+        return qrCode;
+    }
+
+    public boolean isHasCheckedIn() {
+        return hasCheckedIn;
+    }
+}
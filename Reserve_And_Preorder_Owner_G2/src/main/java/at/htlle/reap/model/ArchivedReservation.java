@@ -0,0 +1,166 @@
+package at.htlle.reap.model;
+
+import at.htlle.reap.enums.ReservationStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finished reservation (COMPLETED, CANCELLED, NO_SHOW) moved out of the reservations table by the archiver.
+ * Same columns as {@link Reservation} plus the time it was archived; rows are only written by the archiver.
+ */
+@Entity
+@Immutable
+@jakarta.persistence.Table(name = "reservations_archive", indexes = {
+        @Index(name = "idx_reservations_archive_time", columnList = "reservation_date_time"),
+        @Index(name = "idx_reservations_archive_customer", columnList = "customer_id")
+})
+public class ArchivedReservation {
+
+    @Id
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    @Column(name = "table_id")
+    private Long tableId;
+
+    @Column(name = "combined_table_ids", length = 200)
+    private String combinedTableIds;
+
+    @Column(name = "reservation_date_time", nullable = false)
+    private LocalDateTime reservationDateTime;
+
+    @Column(name = "duration_minutes")
+    private int durationMinutes;
+
+    @Column(name = "number_of_guests", nullable = false)
+    private int numberOfGuests;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 30)
+    private ReservationStatus status;
+
+    @Column(name = "is_group_reservation")
+    private boolean isGroupReservation;
+
+    @Column(name = "phone_number", length = 30)
+    private String phoneNumber;
+
+    @Column(name = "qr_code", columnDefinition = "TEXT")
+    private String qrCode;
+
+    @Column(name = "cancellation_fee", precision = 10, scale = 2)
+    private BigDecimal cancellationFee;
+
+    @Column(name = "checked_in_at")
+    private LocalDateTime checkedInAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Members of a whole result list are loaded with one IN query
+    @OneToMany
+    @JoinColumn(name = "reservation_id", insertable = false, updatable = false)
+    @BatchSize(size = 100)
+    private List<ArchivedGroupMember> groupMembers = new ArrayList<>();
+
+    // No-arg constructor for JPA
+    protected ArchivedReservation() {
+    }
+
+    // Getters (archived rows are read-only)
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public Long getTableId() {
+        return tableId;
+    }
+
+    public String getCombinedTableIds() {
+        return combinedTableIds;
+    }
+
+    public LocalDateTime getReservationDateTime() {
+        return reservationDateTime;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public int getNumberOfGuests() {
+        return numberOfGuests;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public boolean isGroupReservation() {
+        return isGroupReservation;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getQrCode() {
+        return qrCode;
+    }
+
+    public BigDecimal getCancellationFee() {
+        return cancellationFee;
+    }
+
+    public LocalDateTime getCheckedInAt() {
+        return checkedInAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public List<ArchivedGroupMember> getGroupMembers() {
+        return groupMembers;
+    }
+}
@@ -0,0 +1,154 @@
+package at.htlle.reap.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Rollup of one restaurant and day, kept up to date by every reservation and payment transition
+ * (see DailyStatsService). Reservation figures count on the day of the reservation,
+ * revenue on the day of payment.
+ */
+@Entity
+@jakarta.persistence.Table(name = "daily_stats", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_stats_day", columnNames = {"restaurant_id", "stats_date"})
+}, indexes = {
+        @Index(name = "idx_daily_stats_date", columnList = "stats_date")
+})
+public class DailyStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    @Column(name = "stats_date", nullable = false)
+    private LocalDate statsDate;
+
+    // Reservations (incl. walk-ins) and their guests
+    @Column(name = "bookings", nullable = false)
+    private long bookings;
+
+    @Column(name = "covers", nullable = false)
+    private long covers;
+
+    @Column(name = "no_shows", nullable = false)
+    private long noShows;
+
+    @Column(name = "no_show_fees", nullable = false, precision = 12, scale = 2)
+    private BigDecimal noShowFees = BigDecimal.ZERO;
+
+    @Column(name = "cancellations", nullable = false)
+    private long cancellations;
+
+    @Column(name = "cancellation_fees", nullable = false, precision = 12, scale = 2)
+    private BigDecimal cancellationFees = BigDecimal.ZERO;
+
+    // Completed payments per method
+    @Column(name = "revenue_cash", nullable = false, precision = 12, scale = 2)
+    private BigDecimal revenueCash = BigDecimal.ZERO;
+
+    @Column(name = "revenue_credit_card", nullable = false, precision = 12, scale = 2)
+    private BigDecimal revenueCreditCard = BigDecimal.ZERO;
+
+    @Column(name = "revenue_paypal", nullable = false, precision = 12, scale = 2)
+    private BigDecimal revenuePaypal = BigDecimal.ZERO;
+
+    @Column(name = "payments", nullable = false)
+    private long payments;
+
+    // Time from check-in to completion of completed reservations
+    @Column(name = "dwell_seconds_sum", nullable = false)
+    private long dwellSecondsSum;
+
+    @Column(name = "dwell_count", nullable = false)
+    private long dwellCount;
+
+    // No-arg constructor for JPA
+    public DailyStats() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public LocalDate getStatsDate() {
+        return statsDate;
+    }
+
+    public long getBookings() {
+        return bookings;
+    }
+
+    public long getCovers() {
+        return covers;
+    }
+
+    public long getNoShows() {
+        return noShows;
+    }
+
+    public BigDecimal getNoShowFees() {
+        return noShowFees;
+    }
+
+    public long getCancellations() {
+        return cancellations;
+    }
+
+    public BigDecimal getCancellationFees() {
+        return cancellationFees;
+    }
+
+    public BigDecimal getRevenueCash() {
+        return revenueCash;
+    }
+
+    public BigDecimal getRevenueCreditCard() {
+        return revenueCreditCard;
+    }
+
+    public BigDecimal getRevenuePaypal() {
+        return revenuePaypal;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenueCash.add(revenueCreditCard).add(revenuePaypal);
+    }
+
+    public long getPayments() {
+        return payments;
+    }
+
+    public long getDwellSecondsSum() {
+        return dwellSecondsSum;
+    }
+
+    public long getDwellCount() {
+        return dwellCount;
+    }
+
+    public long getAverageDwellMinutes() {
+        return dwellCount == 0 ? 0 : dwellSecondsSum / dwellCount / 60;
+    }
+
+    @Override
+    public String toString() {
+        return "DailyStats{" +
+                "restaurantId=" + restaurantId +
+                ", statsDate=" + statsDate +
+                ", bookings=" + bookings +
+                ", covers=" + covers +
+                ", noShows=" + noShows +
+                ", cancellations=" + cancellations +
+                ", revenue=" + getRevenue() +
+                '}';
+    }
+}
@@ -1,5 +1,6 @@
 package at.htlle.reap.model;
 
+import at.htlle.reap.config.PooledSequence;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 
@@ -7,8 +8,9 @@ import jakarta.persistence.*;
 @jakarta.persistence.Table(name = "group_members")
 public class GroupMember {
 
+    // Pooled sequence: IDs are known before the insert and handed out in blocks, which allows JDBC batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence
     private Long id;
 
     @JsonBackReference
@@ -0,0 +1,48 @@
+package at.htlle.reap.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease of a scheduled job in a cluster of Owner instances (see JobLeases): only the owner
+ * runs the job until lease_until; afterwards any node may take the lease over.
+ */
+@Entity
+@jakarta.persistence.Table(name = "job_leases")
+public class JobLease {
+
+    @Id
+    @Column(name = "job_name", length = 64)
+    private String jobName;
+
+    // Node that holds or last held the lease
+    @Column(name = "owner", nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+
+    // No-arg constructor for JPA
+    protected JobLease() {
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getLockedAt() {
+        return lockedAt;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+}
@@ -8,7 +8,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@jakarta.persistence.Table(name = "payments")
+@jakarta.persistence.Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_created", columnList = "created_at")  // export by date range
+})
 public class Payment {
 
     @Id
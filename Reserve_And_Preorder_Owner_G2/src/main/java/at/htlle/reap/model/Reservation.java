@@ -1,8 +1,11 @@
 package at.htlle.reap.model;
 
+import at.htlle.reap.config.PooledSequence;
 import at.htlle.reap.enums.ReservationStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -10,13 +13,28 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@jakarta.persistence.Table(name = "reservations")
-public class Reservation {
-
+// Indexes for the queries run by the scheduler and on every booking (see ReservationRepository)
+@jakarta.persistence.Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservations_status_time", columnList = "status, reservation_date_time"),
+        @Index(name = "idx_reservations_status_checkin", columnList = "status, checked_in_at"),
+        @Index(name = "idx_reservations_table_status_time", columnList = "table_id, status, reservation_date_time"),
+        @Index(name = "idx_reservations_restaurant_status", columnList = "restaurant_id, status"),
+        @Index(name = "idx_reservations_customer", columnList = "customer_id"),
+        @Index(name = "idx_reservations_time", columnList = "reservation_date_time"),
+        @Index(name = "idx_reservations_updated", columnList = "updated_at")
+})
+public class Reservation implements Persistable<Long> {
+
+    // Pooled sequence: IDs are handed out in blocks and can be assigned before the insert,
+    // so the QR token derived from the ID is part of the one INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence
     private Long id;
 
+    // New instances are persisted even when their ID was assigned up front (no merge SELECT)
+    @Transient
+    private boolean newEntity = true;
+
     @Column(name = "customer_id", nullable = false)
     private Long customerId;
 
@@ -26,6 +44,10 @@ public class Reservation {
     @Column(name = "table_id")
     private Long tableId;
 
+    // Comma-separated IDs of additional tables pushed together with tableId for large parties
+    @Column(name = "combined_table_ids", length = 200)
+    private String combinedTableIds;
+
     @Column(name = "reservation_date_time", nullable = false)
     private LocalDateTime reservationDateTime;
 
@@ -54,14 +76,20 @@ public class Reservation {
     @Column(name = "checked_in_at")
     private LocalDateTime checkedInAt;
 
+    // Set when the reservation is completed, the end of the dwell time
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // In guest order: members are inserted in order and get ascending IDs
     @JsonManagedReference
     @OneToMany(mappedBy = "reservation", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id ASC")
     private List<GroupMember> groupMembers = new ArrayList<>();
 
     // No-arg constructor for JPA
@@ -90,11 +118,23 @@ public class Reservation {
         updatedAt = LocalDateTime.now();
     }
 
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        newEntity = false;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -123,6 +163,37 @@ public class Reservation {
         this.tableId = tableId;
     }
 
+    public String getCombinedTableIds() {
+        return combinedTableIds;
+    }
+
+    public void setCombinedTableIds(String combinedTableIds) {
+        this.combinedTableIds = combinedTableIds;
+    }
+
+    /**
+     * All tables held by this reservation: the main table plus any combined tables
+     */
+    @JsonIgnore
+    public List<Long> getAssignedTableIds() {
+        return assignedTableIds(tableId, combinedTableIds);
+    }
+
+    static List<Long> assignedTableIds(Long tableId, String combinedTableIds) {
+        List<Long> ids = new ArrayList<>();
+        if (tableId != null) {
+            ids.add(tableId);
+        }
+        if (combinedTableIds != null && !combinedTableIds.isBlank()) {
+            for (String id : combinedTableIds.split(",")) {
+                if (!id.isBlank()) {
+                    ids.add(Long.valueOf(id.trim()));
+                }
+            }
+        }
+        return ids;
+    }
+
     public LocalDateTime getReservationDateTime() {
         return reservationDateTime;
     }
@@ -195,6 +266,14 @@ public class Reservation {
         this.checkedInAt = checkedInAt;
     }
 
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -237,6 +316,7 @@ public class Reservation {
                 ", customerId=" + customerId +
                 ", restaurantId=" + restaurantId +
                 ", tableId=" + tableId +
+                ", combinedTableIds='" + combinedTableIds + '\'' +
                 ", reservationDateTime=" + reservationDateTime +
                 ", numberOfGuests=" + numberOfGuests +
                 ", status=" + status +
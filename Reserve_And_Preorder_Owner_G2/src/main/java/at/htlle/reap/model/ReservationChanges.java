@@ -0,0 +1,41 @@
+package at.htlle.reap.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response of GET /api/reservations/changes: reservations created or updated since the watermark,
+ * IDs of removed reservations, and the watermark to send with the next request.
+ * If fullResync is set, changed holds all reservations and the client replaces its copy.
+ */
+public class ReservationChanges {
+
+    private final List<ReservationSummary> changed;
+    private final List<Long> deleted;
+    private final LocalDateTime watermark;
+    private final boolean fullResync;
+
+    public ReservationChanges(List<ReservationSummary> changed, List<Long> deleted,
+                              LocalDateTime watermark, boolean fullResync) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.watermark = watermark;
+        this.fullResync = fullResync;
+    }
+
+    public List<ReservationSummary> getChanged() {
+        return changed;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    public boolean isFullResync() {
+        return fullResync;
+    }
+}
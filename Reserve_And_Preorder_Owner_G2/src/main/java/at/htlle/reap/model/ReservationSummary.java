@@ -0,0 +1,128 @@
+package at.htlle.reap.model;
+
+import at.htlle.reap.enums.ReservationStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reservation as shown in lists: all columns except the QR code, without group members.
+ * Selected directly by the repository (constructor expression), so no entity is loaded.
+ * The JSON property names are the same as for {@link Reservation}.
+ */
+public class ReservationSummary {
+
+    private final Long id;
+    private final Long customerId;
+    private final Long restaurantId;
+    private final Long tableId;
+    private final String combinedTableIds;
+    private final LocalDateTime reservationDateTime;
+    private final int durationMinutes;
+    private final int numberOfGuests;
+    private final ReservationStatus status;
+    private final boolean groupReservation;
+    private final String phoneNumber;
+    private final BigDecimal cancellationFee;
+    private final LocalDateTime checkedInAt;
+    private final LocalDateTime completedAt;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public ReservationSummary(Long id, Long customerId, Long restaurantId, Long tableId, String combinedTableIds,
+                              LocalDateTime reservationDateTime, int durationMinutes, int numberOfGuests,
+                              ReservationStatus status, boolean groupReservation, String phoneNumber,
+                              BigDecimal cancellationFee, LocalDateTime checkedInAt, LocalDateTime completedAt,
+                              LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.customerId = customerId;
+        this.restaurantId = restaurantId;
+        this.tableId = tableId;
+        this.combinedTableIds = combinedTableIds;
+        this.reservationDateTime = reservationDateTime;
+        this.durationMinutes = durationMinutes;
+        this.numberOfGuests = numberOfGuests;
+        this.status = status;
+        this.groupReservation = groupReservation;
+        this.phoneNumber = phoneNumber;
+        this.cancellationFee = cancellationFee;
+        this.checkedInAt = checkedInAt;
+        this.completedAt = completedAt;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public Long getTableId() {
+        return tableId;
+    }
+
+    public String getCombinedTableIds() {
+        return combinedTableIds;
+    }
+
+    /**
+     * All tables held by this reservation: the main table plus any combined tables
+     */
+    @JsonIgnore
+    public List<Long> getAssignedTableIds() {
+        return Reservation.assignedTableIds(tableId, combinedTableIds);
+    }
+
+    public LocalDateTime getReservationDateTime() {
+        return reservationDateTime;
+    }
+
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public int getNumberOfGuests() {
+        return numberOfGuests;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public boolean isGroupReservation() {
+        return groupReservation;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public BigDecimal getCancellationFee() {
+        return cancellationFee;
+    }
+
+    public LocalDateTime getCheckedInAt() {
+        return checkedInAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
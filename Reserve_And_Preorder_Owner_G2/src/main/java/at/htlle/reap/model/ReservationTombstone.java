@@ -0,0 +1,35 @@
+package at.htlle.reap.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker for a reservation that was removed from the reservations table (deleted or archived),
+ * so delta-sync clients (GET /api/reservations/changes) can drop it. Pruned after the retention period.
+ */
+@Entity
+@jakarta.persistence.Table(name = "reservation_tombstones", indexes = {
+        @Index(name = "idx_reservation_tombstones_deleted", columnList = "deleted_at")
+})
+public class ReservationTombstone {
+
+    @Id
+    @Column(name = "reservation_id")
+    private Long reservationId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // No-arg constructor for JPA
+    protected ReservationTombstone() {
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -1,14 +1,21 @@
 package at.htlle.reap.model;
 
+import at.htlle.reap.config.PooledSequence;
 import at.htlle.reap.enums.TableStatus;
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 @Entity
-@jakarta.persistence.Table(name = "tables")
+@jakarta.persistence.Table(name = "tables", indexes = {
+        // Startup loads the tables that are being cleaned
+        @Index(name = "idx_tables_status", columnList = "status")
+})
 public class Table {
 
+    // Pooled sequence: IDs are known before the insert and handed out in blocks, which allows JDBC batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence
     private Long id;
 
     @Column(name = "restaurant_id", nullable = false)
@@ -27,6 +34,17 @@ public class Table {
     @Column(name = "current_reservation_id")
     private Long currentReservationId;
 
+    // Comma-separated IDs of neighbouring tables this table can be pushed together with (e.g. "2,3")
+    @Column(name = "adjacent_table_ids", length = 200)
+    private String adjacentTableIds;
+
+    // Set while the table is CLEANING: when cleaning started and when the table becomes AVAILABLE again
+    @Column(name = "cleaning_started_at")
+    private LocalDateTime cleaningStartedAt;
+
+    @Column(name = "cleaning_until")
+    private LocalDateTime cleaningUntil;
+
     // No-arg constructor for JPA
     public Table() {
     }
@@ -87,6 +105,30 @@ public class Table {
         this.currentReservationId = currentReservationId;
     }
 
+    public String getAdjacentTableIds() {
+        return adjacentTableIds;
+    }
+
+    public void setAdjacentTableIds(String adjacentTableIds) {
+        this.adjacentTableIds = adjacentTableIds;
+    }
+
+    public LocalDateTime getCleaningStartedAt() {
+        return cleaningStartedAt;
+    }
+
+    public void setCleaningStartedAt(LocalDateTime cleaningStartedAt) {
+        this.cleaningStartedAt = cleaningStartedAt;
+    }
+
+    public LocalDateTime getCleaningUntil() {
+        return cleaningUntil;
+    }
+
+    public void setCleaningUntil(LocalDateTime cleaningUntil) {
+        this.cleaningUntil = cleaningUntil;
+    }
+
     @Override
     public String toString() {
         return "Table{" +
@@ -0,0 +1,56 @@
+package at.htlle.reap.model;
+
+/**
+ * Turn-around statistics of one table: time from the guests leaving (table no longer OCCUPIED)
+ * until the next guests occupy it (check-in or walk-in), in seconds. Includes cleaning and idle time.
+ * Kept in memory since the last start.
+ */
+public class TableTurnaround {
+
+    private final Long tableId;
+    private long count;
+    private long totalSeconds;
+    private long minSeconds;
+    private long maxSeconds;
+    private long lastSeconds;
+
+    public TableTurnaround(Long tableId) {
+        this.tableId = tableId;
+    }
+
+    public synchronized void record(long seconds) {
+        if (count == 0 || seconds < minSeconds) {
+            minSeconds = seconds;
+        }
+        if (seconds > maxSeconds) {
+            maxSeconds = seconds;
+        }
+        lastSeconds = seconds;
+        totalSeconds += seconds;
+        count++;
+    }
+
+    public Long getTableId() {
+        return tableId;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getAverageSeconds() {
+        return count == 0 ? 0 : totalSeconds / count;
+    }
+
+    public synchronized long getMinSeconds() {
+        return minSeconds;
+    }
+
+    public synchronized long getMaxSeconds() {
+        return maxSeconds;
+    }
+
+    public synchronized long getLastSeconds() {
+        return lastSeconds;
+    }
+}
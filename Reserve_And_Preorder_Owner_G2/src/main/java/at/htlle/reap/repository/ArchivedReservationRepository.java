@@ -0,0 +1,54 @@
+package at.htlle.reap.repository;
+
+import at.htlle.reap.model.ArchivedReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedReservationRepository extends JpaRepository<ArchivedReservation, Long> {
+
+    String RESERVATION_COLUMNS = "id, customer_id, restaurant_id, table_id, combined_table_ids, " +
+            "reservation_date_time, duration_minutes, number_of_guests, status, is_group_reservation, " +
+            "phone_number, qr_code, cancellation_fee, checked_in_at, completed_at, created_at, updated_at";
+
+    String MEMBER_COLUMNS = "id, reservation_id, guest_name, guest_email, qr_code, has_checked_in";
+
+    // Find archived reservations by date range (reservation time in [from, to))
+    @Query("SELECT r FROM ArchivedReservation r WHERE r.reservationDateTime >= :from " +
+           "AND r.reservationDateTime < :to ORDER BY r.reservationDateTime, r.id")
+    List<ArchivedReservation> findByDateRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Find archived reservations by customer ID
+    List<ArchivedReservation> findByCustomerId(Long customerId);
+
+    // Archiver: copy reservations into the archive (set-based, no entities loaded)
+    @Modifying
+    @Query(value = "INSERT INTO reservations_archive (" + RESERVATION_COLUMNS + ", archived_at) " +
+                   "SELECT " + RESERVATION_COLUMNS + ", CURRENT_TIMESTAMP FROM reservations WHERE id IN (:ids)",
+           nativeQuery = true)
+    int copyReservations(@Param("ids") Collection<Long> ids);
+
+    // Archiver: copy the group members of these reservations into the archive
+    @Modifying
+    @Query(value = "INSERT INTO group_members_archive (" + MEMBER_COLUMNS + ") " +
+                   "SELECT " + MEMBER_COLUMNS + " FROM group_members WHERE reservation_id IN (:ids)",
+           nativeQuery = true)
+    int copyGroupMembers(@Param("ids") Collection<Long> ids);
+
+    // Archiver: remove copied group members from the hot table
+    @Modifying
+    @Query(value = "DELETE FROM group_members WHERE reservation_id IN (:ids)", nativeQuery = true)
+    int deleteGroupMembers(@Param("ids") Collection<Long> ids);
+
+    // Archiver: remove copied reservations from the hot table
+    @Modifying
+    @Query(value = "DELETE FROM reservations WHERE id IN (:ids)", nativeQuery = true)
+    int deleteReservations(@Param("ids") Collection<Long> ids);
+}
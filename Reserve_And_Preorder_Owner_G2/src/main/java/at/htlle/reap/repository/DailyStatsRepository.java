@@ -0,0 +1,126 @@
+package at.htlle.reap.repository;
+
+import at.htlle.reap.model.DailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DailyStatsRepository extends JpaRepository<DailyStats, Long> {
+
+    // Reservations of both the live and the archive table (the rollup covers the whole history)
+    String ALL_RESERVATIONS = "(SELECT id, restaurant_id, reservation_date_time, number_of_guests, status, " +
+            "cancellation_fee, checked_in_at, completed_at FROM reservations " +
+            "UNION ALL SELECT id, restaurant_id, reservation_date_time, number_of_guests, status, " +
+            "cancellation_fee, checked_in_at, completed_at FROM reservations_archive)";
+
+    // Rows of a date range, ordered by day and restaurant
+    @Query("SELECT d FROM DailyStats d WHERE d.statsDate >= :from AND d.statsDate <= :to " +
+           "ORDER BY d.statsDate, d.restaurantId")
+    List<DailyStats> findByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Rows of one day (one per restaurant)
+    List<DailyStats> findByStatsDate(LocalDate statsDate);
+
+    // Revenue per method and number of payments over all days
+    @Query("SELECT COALESCE(SUM(d.revenueCash), 0), COALESCE(SUM(d.revenueCreditCard), 0), " +
+           "COALESCE(SUM(d.revenuePaypal), 0), COALESCE(SUM(d.payments), 0) FROM DailyStats d")
+    List<Object[]> sumRevenue();
+
+    // Restaurant of a reservation, also if it has been archived
+    @Query(value = "SELECT restaurant_id FROM reservations WHERE id = :reservationId " +
+                   "UNION ALL SELECT restaurant_id FROM reservations_archive WHERE id = :reservationId",
+           nativeQuery = true)
+    Optional<Long> findRestaurantIdOfReservation(@Param("reservationId") Long reservationId);
+
+    // Add deltas to the row of a restaurant and day, creating the row on first use (one statement)
+    @Modifying
+    @Query(value = "MERGE INTO daily_stats d " +
+                   "USING (VALUES (CAST(:restaurantId AS BIGINT), CAST(:day AS DATE))) k(restaurant_id, stats_date) " +
+                   "ON d.restaurant_id = k.restaurant_id AND d.stats_date = k.stats_date " +
+                   "WHEN MATCHED THEN UPDATE SET bookings = d.bookings + :bookings, covers = d.covers + :covers, " +
+                   "no_shows = d.no_shows + :noShows, no_show_fees = d.no_show_fees + :noShowFees, " +
+                   "cancellations = d.cancellations + :cancellations, " +
+                   "cancellation_fees = d.cancellation_fees + :cancellationFees, " +
+                   "revenue_cash = d.revenue_cash + :revenueCash, " +
+                   "revenue_credit_card = d.revenue_credit_card + :revenueCreditCard, " +
+                   "revenue_paypal = d.revenue_paypal + :revenuePaypal, payments = d.payments + :payments, " +
+                   "dwell_seconds_sum = d.dwell_seconds_sum + :dwellSeconds, dwell_count = d.dwell_count + :dwellCount " +
+                   "WHEN NOT MATCHED THEN INSERT (restaurant_id, stats_date, bookings, covers, no_shows, no_show_fees, " +
+                   "cancellations, cancellation_fees, revenue_cash, revenue_credit_card, revenue_paypal, payments, " +
+                   "dwell_seconds_sum, dwell_count) VALUES (k.restaurant_id, k.stats_date, :bookings, :covers, " +
+                   ":noShows, :noShowFees, :cancellations, :cancellationFees, :revenueCash, :revenueCreditCard, " +
+                   ":revenuePaypal, :payments, :dwellSeconds, :dwellCount)",
+           nativeQuery = true)
+    int add(@Param("restaurantId") Long restaurantId, @Param("day") LocalDate day,
+            @Param("bookings") long bookings, @Param("covers") long covers,
+            @Param("noShows") long noShows, @Param("noShowFees") BigDecimal noShowFees,
+            @Param("cancellations") long cancellations, @Param("cancellationFees") BigDecimal cancellationFees,
+            @Param("revenueCash") BigDecimal revenueCash, @Param("revenueCreditCard") BigDecimal revenueCreditCard,
+            @Param("revenuePaypal") BigDecimal revenuePaypal, @Param("payments") long payments,
+            @Param("dwellSeconds") long dwellSeconds, @Param("dwellCount") long dwellCount);
+
+    // Reservations completed before completed_at existed: their last update is the best known completion time
+    @Modifying
+    @Query(value = "UPDATE reservations SET completed_at = updated_at " +
+                   "WHERE status = 'COMPLETED' AND completed_at IS NULL", nativeQuery = true)
+    int backfillCompletedAt();
+
+    @Modifying
+    @Query(value = "UPDATE reservations_archive SET completed_at = updated_at " +
+                   "WHERE status = 'COMPLETED' AND completed_at IS NULL", nativeQuery = true)
+    int backfillArchivedCompletedAt();
+
+    // Rebuild, step 1: empty the rollup
+    @Modifying
+    @Query(value = "DELETE FROM daily_stats", nativeQuery = true)
+    int deleteAllRows();
+
+    // Rebuild, step 2: reservation figures per restaurant and reservation day
+    @Modifying
+    @Query(value = "INSERT INTO daily_stats (restaurant_id, stats_date, bookings, covers, no_shows, no_show_fees, " +
+                   "cancellations, cancellation_fees, revenue_cash, revenue_credit_card, revenue_paypal, payments, " +
+                   "dwell_seconds_sum, dwell_count) " +
+                   "SELECT r.restaurant_id, CAST(r.reservation_date_time AS DATE), COUNT(*), SUM(r.number_of_guests), " +
+                   "SUM(CASE WHEN r.status = 'NO_SHOW' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN r.status = 'NO_SHOW' THEN COALESCE(r.cancellation_fee, 0) ELSE 0 END), " +
+                   "SUM(CASE WHEN r.status = 'CANCELLED' THEN 1 ELSE 0 END), " +
+                   "SUM(CASE WHEN r.status = 'CANCELLED' THEN COALESCE(r.cancellation_fee, 0) ELSE 0 END), " +
+                   "0, 0, 0, 0, " +
+                   "SUM(CASE WHEN r.status = 'COMPLETED' AND r.checked_in_at IS NOT NULL AND r.completed_at IS NOT NULL " +
+                   "THEN DATEDIFF('SECOND', r.checked_in_at, r.completed_at) ELSE 0 END), " +
+                   "SUM(CASE WHEN r.status = 'COMPLETED' AND r.checked_in_at IS NOT NULL AND r.completed_at IS NOT NULL " +
+                   "THEN 1 ELSE 0 END) " +
+                   "FROM " + ALL_RESERVATIONS + " r " +
+                   "GROUP BY r.restaurant_id, CAST(r.reservation_date_time AS DATE)",
+           nativeQuery = true)
+    int insertReservationFigures();
+
+    // Rebuild, step 3: completed payments per restaurant and day of payment
+    @Modifying
+    @Query(value = "MERGE INTO daily_stats d " +
+                   "USING (SELECT r.restaurant_id, CAST(p.paid_at AS DATE) AS stats_date, " +
+                   "SUM(CASE WHEN p.payment_method = 'CASH' THEN p.amount ELSE 0 END) AS cash, " +
+                   "SUM(CASE WHEN p.payment_method = 'CREDIT_CARD' THEN p.amount ELSE 0 END) AS card, " +
+                   "SUM(CASE WHEN p.payment_method = 'PAYPAL' THEN p.amount ELSE 0 END) AS paypal, " +
+                   "COUNT(*) AS cnt " +
+                   "FROM payments p JOIN " + ALL_RESERVATIONS + " r ON r.id = p.reservation_id " +
+                   "WHERE p.payment_status = 'COMPLETED' AND p.paid_at IS NOT NULL " +
+                   "GROUP BY r.restaurant_id, CAST(p.paid_at AS DATE)) s " +
+                   "ON d.restaurant_id = s.restaurant_id AND d.stats_date = s.stats_date " +
+                   "WHEN MATCHED THEN UPDATE SET revenue_cash = s.cash, revenue_credit_card = s.card, " +
+                   "revenue_paypal = s.paypal, payments = s.cnt " +
+                   "WHEN NOT MATCHED THEN INSERT (restaurant_id, stats_date, bookings, covers, no_shows, no_show_fees, " +
+                   "cancellations, cancellation_fees, revenue_cash, revenue_credit_card, revenue_paypal, payments, " +
+                   "dwell_seconds_sum, dwell_count) VALUES (s.restaurant_id, s.stats_date, 0, 0, 0, 0, 0, 0, " +
+                   "s.cash, s.card, s.paypal, s.cnt, 0, 0)",
+           nativeQuery = true)
+    int mergePaymentFigures();
+}
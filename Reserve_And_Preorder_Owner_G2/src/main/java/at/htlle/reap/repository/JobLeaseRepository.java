@@ -0,0 +1,42 @@
+package at.htlle.reap.repository;
+
+import at.htlle.reap.model.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * All lease times are taken from the database clock, so the clocks of the nodes do not have to agree
+ */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    // Take over an expired lease
+    @Modifying
+    @Query(value = "UPDATE job_leases SET owner = :owner, locked_at = LOCALTIMESTAMP, " +
+                   "lease_until = DATEADD('MILLISECOND', :leaseMillis, LOCALTIMESTAMP) " +
+                   "WHERE job_name = :jobName AND lease_until <= LOCALTIMESTAMP",
+           nativeQuery = true)
+    int takeOverExpired(@Param("jobName") String jobName, @Param("owner") String owner,
+                        @Param("leaseMillis") long leaseMillis);
+
+    // First lease of a job (a concurrent first insert fails on the primary key)
+    @Modifying
+    @Query(value = "INSERT INTO job_leases (job_name, owner, locked_at, lease_until) " +
+                   "SELECT :jobName, :owner, LOCALTIMESTAMP, DATEADD('MILLISECOND', :leaseMillis, LOCALTIMESTAMP) " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM job_leases WHERE job_name = :jobName)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("jobName") String jobName, @Param("owner") String owner,
+                       @Param("leaseMillis") long leaseMillis);
+
+    // Shorten the lease after the run: it stays held until locked_at + minimum duration, if that is later than now
+    @Modifying
+    @Query(value = "UPDATE job_leases SET lease_until = " +
+                   "GREATEST(DATEADD('MILLISECOND', :minMillis, locked_at), LOCALTIMESTAMP) " +
+                   "WHERE job_name = :jobName AND owner = :owner",
+           nativeQuery = true)
+    int release(@Param("jobName") String jobName, @Param("owner") String owner,
+                @Param("minMillis") long minMillis);
+}
@@ -2,11 +2,19 @@ package at.htlle.reap.repository;
 
 import at.htlle.reap.enums.PaymentStatus;
 import at.htlle.reap.model.Payment;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -19,4 +27,12 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
 
     // Find payments by transaction ID
     Optional<Payment> findByTransactionId(String transactionId);
+
+    // Keyset pagination: next rows after the given ID
+    List<Payment> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Export: payments created in a time range, read through a cursor (must be consumed inside a transaction)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Payment p WHERE p.createdAt >= :from AND p.createdAt < :to ORDER BY p.createdAt, p.id")
+    Stream<Payment> streamByCreatedAt(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
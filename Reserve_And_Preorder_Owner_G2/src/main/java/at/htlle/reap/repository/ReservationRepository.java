@@ -2,17 +2,32 @@ package at.htlle.reap.repository;
 
 import at.htlle.reap.enums.ReservationStatus;
 import at.htlle.reap.model.Reservation;
+import at.htlle.reap.model.ReservationSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, Long> {
 
+    // List views select ReservationSummary rows: no qr_code column, no group members
+    String SUMMARY = "SELECT new at.htlle.reap.model.ReservationSummary(r.id, r.customerId, r.restaurantId, " +
+            "r.tableId, r.combinedTableIds, r.reservationDateTime, r.durationMinutes, r.numberOfGuests, " +
+            "r.status, r.isGroupReservation, r.phoneNumber, r.cancellationFee, r.checkedInAt, " +
+            "r.completedAt, r.createdAt, r.updatedAt) FROM Reservation r ";
+
     // Find reservations by customer ID
     List<Reservation> findByCustomerId(Long customerId);
 
@@ -25,6 +40,22 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     // Find reservations by restaurant and status
     List<Reservation> findByRestaurantIdAndStatus(Long restaurantId, ReservationStatus status);
 
+    // Find reservations in one of the given states starting after a point in time
+    List<Reservation> findByStatusInAndReservationDateTimeAfter(Collection<ReservationStatus> statuses,
+                                                               LocalDateTime after);
+
+    // Bookings of a restaurant in the given states that start in (from, end); overlap per table is checked by the caller
+    @Query(SUMMARY + "WHERE r.restaurantId = :restaurantId AND r.status IN :statuses " +
+           "AND r.reservationDateTime > :from AND r.reservationDateTime < :end")
+    List<ReservationSummary> findSummariesStartingBetween(@Param("restaurantId") Long restaurantId,
+                                                          @Param("statuses") Collection<ReservationStatus> statuses,
+                                                          @Param("from") LocalDateTime from,
+                                                          @Param("end") LocalDateTime end);
+
+    // Find waiting reservations (no table assigned yet) starting after a point in time
+    List<Reservation> findByStatusAndTableIdIsNullAndReservationDateTimeAfter(ReservationStatus status,
+                                                                             LocalDateTime after);
+
     // Find reservations by date range
     @Query("SELECT r FROM Reservation r WHERE r.reservationDateTime BETWEEN :startDate AND :endDate")
     List<Reservation> findByDateRange(@Param("startDate") LocalDateTime startDate,
@@ -54,4 +85,62 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     boolean isTableAvailable(@Param("tableId") Long tableId,
                             @Param("startTime") LocalDateTime startTime,
                             @Param("endTime") LocalDateTime endTime);
+
+    // Summaries for the list endpoints
+    @Query(SUMMARY + "ORDER BY r.id")
+    List<ReservationSummary> findAllSummaries();
+
+    // Keyset pagination: next rows after the given ID
+    @Query(SUMMARY + "WHERE r.id > :afterId ORDER BY r.id")
+    List<ReservationSummary> findSummariesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query(SUMMARY + "WHERE r.customerId = :customerId")
+    List<ReservationSummary> findSummariesByCustomerId(@Param("customerId") Long customerId);
+
+    @Query(SUMMARY + "WHERE r.restaurantId = :restaurantId")
+    List<ReservationSummary> findSummariesByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    @Query(SUMMARY + "WHERE r.status = :status")
+    List<ReservationSummary> findSummariesByStatus(@Param("status") ReservationStatus status);
+
+    @Query(SUMMARY + "WHERE r.status = 'CONFIRMED' AND r.reservationDateTime < :cutoffTime AND r.checkedInAt IS NULL")
+    List<ReservationSummary> findPotentialNoShowSummaries(@Param("cutoffTime") LocalDateTime cutoffTime);
+
+    @Query(SUMMARY + "WHERE r.status = 'CHECKED_IN' AND r.checkedInAt < :cutoffTime")
+    List<ReservationSummary> findTimeoutCandidateSummaries(@Param("cutoffTime") LocalDateTime cutoffTime);
+
+    // Export: summaries in a time range, read through a cursor (must be consumed inside a transaction)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + "WHERE r.reservationDateTime >= :from AND r.reservationDateTime < :to " +
+           "ORDER BY r.reservationDateTime, r.id")
+    Stream<ReservationSummary> streamSummaries(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Archiver: next finished reservations that are due for the archive
+    @Query("SELECT r.id FROM Reservation r WHERE r.status IN :statuses AND r.reservationDateTime < :cutoff ORDER BY r.id")
+    List<Long> findIdsToArchive(@Param("statuses") Collection<ReservationStatus> statuses,
+                                @Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    // Delta sync: reservations created or updated after the watermark (index on updated_at)
+    @Query(SUMMARY + "WHERE r.updatedAt > :since ORDER BY r.updatedAt, r.id")
+    List<ReservationSummary> findSummariesChangedSince(@Param("since") LocalDateTime since);
+
+    // Bulk no-show: mark the given reservations NO_SHOW and charge the absence fee, unless they were
+    // checked in or changed in the meantime; updated_at is set explicitly (no @PreUpdate for bulk updates)
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = 'NO_SHOW', r.cancellationFee = r.numberOfGuests * :feePerGuest, " +
+           "r.updatedAt = :now WHERE r.id IN :ids AND r.status = 'CONFIRMED' AND r.checkedInAt IS NULL")
+    int markNoShows(@Param("ids") Collection<Long> ids, @Param("feePerGuest") BigDecimal feePerGuest,
+                    @Param("now") LocalDateTime now);
+
+    // Bulk timeout warning for reservations that are still checked in
+    @Modifying
+    @Query("UPDATE Reservation r SET r.status = 'TIMEOUT_WARNING', r.updatedAt = :now " +
+           "WHERE r.id IN :ids AND r.status = 'CHECKED_IN'")
+    int markTimeoutWarnings(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Which of the given reservations were updated to the given state at the given time, i.e. by this bulk update
+    // (rows another transaction set to the same state have another updated_at)
+    @Query("SELECT r.id FROM Reservation r WHERE r.id IN :ids AND r.status = :status AND r.updatedAt = :updatedAt")
+    List<Long> findIdsUpdatedTo(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status,
+                                @Param("updatedAt") LocalDateTime updatedAt);
 }
@@ -0,0 +1,33 @@
+package at.htlle.reap.repository;
+
+import at.htlle.reap.model.ReservationTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReservationTombstoneRepository extends JpaRepository<ReservationTombstone, Long> {
+
+    // IDs of reservations removed after the given point in time
+    @Query("SELECT t.reservationId FROM ReservationTombstone t WHERE t.deletedAt > :since")
+    List<Long> findIdsDeletedSince(@Param("since") LocalDateTime since);
+
+    // Record the removal of these reservations (must run before they are deleted)
+    @Modifying
+    @Query(value = "INSERT INTO reservation_tombstones (reservation_id, deleted_at) " +
+                   "SELECT id, :deletedAt FROM reservations WHERE id IN (:ids)", nativeQuery = true)
+    int recordDeletions(@Param("ids") Collection<Long> ids, @Param("deletedAt") LocalDateTime deletedAt);
+
+    // Remove tombstones older than the retention period
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ReservationTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,11 +2,18 @@ package at.htlle.reap.repository;
 
 import at.htlle.reap.enums.TableStatus;
 import at.htlle.reap.model.Table;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -25,4 +32,39 @@ public interface TableRepository extends JpaRepository<Table, Long> {
            "ORDER BY t.capacity ASC")
     List<Table> findAvailableTablesWithCapacity(@Param("restaurantId") Long restaurantId,
                                                 @Param("minCapacity") int minCapacity);
+
+    // Lock the rows of the given tables until the end of the transaction (in ID order, so lockers cannot deadlock)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Table t WHERE t.id IN :tableIds ORDER BY t.id")
+    List<Table> lockAllById(@Param("tableIds") Collection<Long> tableIds);
+
+    // Reserve and link tables in one statement, skipping tables currently held by another reservation
+    @Modifying
+    @Query("UPDATE Table t SET t.status = 'RESERVED', t.currentReservationId = :reservationId " +
+           "WHERE t.id IN :tableIds AND (t.status = 'AVAILABLE' OR t.status IS NULL)")
+    int reserveIfAvailable(@Param("tableIds") Collection<Long> tableIds,
+                           @Param("reservationId") Long reservationId);
+
+    // Release tables in one statement, unless they are held by a reservation other than the given ones
+    // or are being cleaned (those become available at their cleaning deadline)
+    @Modifying
+    @Query("UPDATE Table t SET t.status = :status, t.currentReservationId = NULL WHERE t.id IN :tableIds " +
+           "AND (t.currentReservationId IS NULL OR t.currentReservationId IN :reservationIds) " +
+           "AND (t.status IS NULL OR t.status <> 'CLEANING')")
+    int releaseTables(@Param("tableIds") Collection<Long> tableIds,
+                      @Param("reservationIds") Collection<Long> reservationIds,
+                      @Param("status") TableStatus status);
+
+    // Tables currently in the given state
+    List<Table> findByStatus(TableStatus status);
+
+    // End of cleaning: only if the table is still being cleaned with the given deadline
+    @Modifying
+    @Transactional
+    @Query("UPDATE Table t SET t.status = 'AVAILABLE', t.cleaningStartedAt = NULL, t.cleaningUntil = NULL " +
+           "WHERE t.id = :tableId AND t.status = 'CLEANING' AND t.cleaningUntil = :cleaningUntil")
+    int finishCleaning(@Param("tableId") Long tableId, @Param("cleaningUntil") LocalDateTime cleaningUntil);
+
+    // Keyset pagination: next rows after the given ID
+    List<Table> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 }
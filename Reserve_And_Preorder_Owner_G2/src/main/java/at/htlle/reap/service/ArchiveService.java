@@ -0,0 +1,119 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.ArchivedReservation;
+import at.htlle.reap.repository.ArchivedReservationRepository;
+import at.htlle.reap.repository.ReservationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Hot/archive tiering: finished reservations older than reap.archive.after-days are moved
+ * (together with their group members) from reservations into reservations_archive.
+ * Rows are moved in chunks, one transaction per chunk, so locks are short and the hot table stays small.
+ * Archived data is only returned by the explicit archive queries.
+ */
+@Service
+public class ArchiveService {
+
+    // Reservations in these states never change again
+    public static final List<ReservationStatus> FINISHED_STATES = List.of(
+            ReservationStatus.COMPLETED, ReservationStatus.CANCELLED, ReservationStatus.NO_SHOW);
+
+    private final ReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archivedReservationRepository;
+    private final ReservationChangeFeed changeFeed;
+    private final JobLeases jobLeases;
+    private final TransactionTemplate chunkTransaction;
+    private final int afterDays;
+    private final int chunkSize;
+
+    @Autowired
+    public ArchiveService(ReservationRepository reservationRepository,
+                          ArchivedReservationRepository archivedReservationRepository,
+                          ReservationChangeFeed changeFeed,
+                          JobLeases jobLeases,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${reap.archive.after-days:90}") int afterDays,
+                          @Value("${reap.archive.chunk-size:500}") int chunkSize) {
+        this.reservationRepository = reservationRepository;
+        this.archivedReservationRepository = archivedReservationRepository;
+        this.changeFeed = changeFeed;
+        this.jobLeases = jobLeases;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.afterDays = afterDays;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Nightly archive run (time configurable via reap.archive.cron), on one node of the cluster
+     */
+    @Scheduled(cron = "${reap.archive.cron:0 30 3 * * *}")
+    public void archiveNightly() {
+        jobLeases.runExclusive("archive", Duration.ofHours(2), Duration.ofHours(1), this::archiveFinishedReservations);
+    }
+
+    /**
+     * Move all finished reservations older than the configured age into the archive
+     * @return number of archived reservations
+     */
+    public int archiveFinishedReservations() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+        int moved;
+        do {
+            moved = chunkTransaction.execute(status -> archiveChunk(cutoff));
+            total += moved;
+        } while (moved == chunkSize);
+
+        if (total > 0) {
+            System.out.println("Archived " + total + " finished reservations older than " + cutoff.toLocalDate());
+        }
+        return total;
+    }
+
+    private int archiveChunk(LocalDateTime cutoff) {
+        List<Long> ids = reservationRepository.findIdsToArchive(FINISHED_STATES, cutoff, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedReservationRepository.copyReservations(ids);
+        archivedReservationRepository.copyGroupMembers(ids);
+        // For delta-sync clients archived reservations are gone from the live list
+        changeFeed.recordDeletions(ids);
+        archivedReservationRepository.deleteGroupMembers(ids);
+        archivedReservationRepository.deleteReservations(ids);
+        return ids.size();
+    }
+
+    /**
+     * Get archived reservations with a reservation time in [from, to)
+     */
+    public List<ArchivedReservation> getArchivedReservations(LocalDateTime from, LocalDateTime to) {
+        return archivedReservationRepository.findByDateRange(from, to);
+    }
+
+    /**
+     * Get archived reservations by customer ID
+     */
+    public List<ArchivedReservation> getArchivedReservationsByCustomerId(Long customerId) {
+        return archivedReservationRepository.findByCustomerId(customerId);
+    }
+
+    /**
+     * Get archived reservation by ID
+     */
+    public ArchivedReservation getArchivedReservationById(Long id) {
+        return archivedReservationRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Archived reservation not found with id: " + id));
+    }
+}
@@ -0,0 +1,466 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.PaymentMethod;
+import at.htlle.reap.enums.PaymentStatus;
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.DailyStats;
+import at.htlle.reap.model.Payment;
+import at.htlle.reap.model.Reservation;
+import at.htlle.reap.model.ReservationSummary;
+import at.htlle.reap.repository.DailyStatsRepository;
+import at.htlle.reap.repository.PaymentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Daily statistics per restaurant (table daily_stats), maintained incrementally:
+ * every reservation and payment transition adds its difference to the affected rows
+ * in the same transaction (written just before commit), so reports read a few rows instead of scanning reservations and payments.
+ * The rollup can be rebuilt from the reservations (incl. archive) and payments at any time.
+ */
+@Service
+public class DailyStatsService {
+
+    private final DailyStatsRepository dailyStatsRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate newTransaction;
+
+    // Restaurant days whose row is known to be committed, and locks for creating the others
+    // (a lock is dropped once its row is known to exist)
+    private final Set<Key> existingRows = ConcurrentHashMap.newKeySet();
+    private final Map<Key, ReentrantLock> creationLocks = new ConcurrentHashMap<>();
+    private static final int CREATION_LOCK_SECONDS = 5;
+
+    // Writes that timed out waiting for a creation lock are retried after commit, this often
+    private static final int WRITE_ATTEMPTS = 3;
+
+    @Autowired
+    public DailyStatsService(DailyStatsRepository dailyStatsRepository, PaymentRepository paymentRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.paymentRepository = paymentRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * What a reservation in its current state adds to the statistics of its day
+     * (take one before and one after a transition and pass both to reservationChanged)
+     */
+    public static Contribution contributionOf(Reservation reservation) {
+        return new Contribution(reservation.getRestaurantId(), reservation.getReservationDateTime(),
+                reservation.getNumberOfGuests(), reservation.getStatus(), reservation.getCancellationFee(),
+                reservation.getCheckedInAt(), reservation.getCompletedAt());
+    }
+
+    public static Contribution contributionOf(ReservationSummary reservation) {
+        return new Contribution(reservation.getRestaurantId(), reservation.getReservationDateTime(),
+                reservation.getNumberOfGuests(), reservation.getStatus(), reservation.getCancellationFee(),
+                reservation.getCheckedInAt(), reservation.getCompletedAt());
+    }
+
+    /**
+     * Apply a reservation transition (before is null for a new reservation, after is null for a deleted one)
+     */
+    public void reservationChanged(Contribution before, Contribution after) {
+        Map<Key, Delta> deltas = new LinkedHashMap<>();
+        if (before != null) {
+            before.addTo(deltas, -1);
+        }
+        if (after != null) {
+            after.addTo(deltas, 1);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Apply the transitions of many reservations with one statement per restaurant and day
+     */
+    public void reservationsChanged(Collection<Contribution> before, Collection<Contribution> after) {
+        Map<Key, Delta> deltas = new LinkedHashMap<>();
+        before.forEach(contribution -> contribution.addTo(deltas, -1));
+        after.forEach(contribution -> contribution.addTo(deltas, 1));
+        apply(deltas);
+    }
+
+    /**
+     * A reservation is about to be deleted: its figures and its completed payment are taken back
+     * (the rebuild only sees payments of reservations that still exist)
+     */
+    public void reservationDeleted(Reservation reservation) {
+        reservationChanged(contributionOf(reservation), null);
+        paymentRepository.findByReservationId(reservation.getId())
+                .filter(payment -> payment.getPaymentStatus() == PaymentStatus.COMPLETED)
+                .ifPresent(payment -> addPayment(payment, -1));
+    }
+
+    /**
+     * A payment was completed (counts as revenue on the day it was paid)
+     */
+    public void paymentCompleted(Payment payment) {
+        addPayment(payment, 1);
+    }
+
+    /**
+     * A completed payment was refunded (its revenue is taken back from the day it was paid)
+     */
+    public void paymentRefunded(Payment payment) {
+        addPayment(payment, -1);
+    }
+
+    private void addPayment(Payment payment, int sign) {
+        if (payment.getPaidAt() == null) {
+            return;
+        }
+        Long restaurantId = dailyStatsRepository.findRestaurantIdOfReservation(payment.getReservationId()).orElse(null);
+        if (restaurantId == null) {
+            return;
+        }
+        Delta delta = new Delta();
+        BigDecimal amount = sign > 0 ? payment.getAmount() : payment.getAmount().negate();
+        if (payment.getPaymentMethod() == PaymentMethod.CASH) {
+            delta.revenueCash = amount;
+        } else if (payment.getPaymentMethod() == PaymentMethod.CREDIT_CARD) {
+            delta.revenueCreditCard = amount;
+        } else {
+            delta.revenuePaypal = amount;
+        }
+        delta.payments = sign;
+        apply(Map.of(new Key(restaurantId, payment.getPaidAt().toLocalDate()), delta));
+    }
+
+    /**
+     * Inside a transaction the deltas are collected and written just before commit, one statement per
+     * restaurant and day in a fixed order: the rows are locked only for the commit and cannot deadlock.
+     */
+    private void apply(Map<Key, Delta> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transaction.executeWithoutResult(status -> apply(deltas));
+            return;
+        }
+        PendingDeltas pending = pendingDeltas();
+        if (pending != null && pending.written) {
+            // Called after the commit of the transaction (e.g. from an afterCommit callback)
+            newTransaction.executeWithoutResult(status -> apply(deltas));
+            return;
+        }
+        if (pending == null) {
+            pending = new PendingDeltas();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        for (Map.Entry<Key, Delta> entry : deltas.entrySet()) {
+            pending.deltas.computeIfAbsent(entry.getKey(), key -> new Delta()).add(entry.getValue());
+        }
+    }
+
+    // Deltas of the current transaction; those of a suspended outer transaction are not visible here
+    private PendingDeltas pendingDeltas() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingDeltas pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the deltas of a transaction
+     * @return deltas that were not written because their row is being created by another transaction
+     */
+    private Map<Key, Delta> write(Map<Key, Delta> deltas, List<ReentrantLock> held) {
+        Map<Key, Delta> deferred = new TreeMap<>();
+        for (Map.Entry<Key, Delta> entry : deltas.entrySet()) {
+            Key key = entry.getKey();
+            Delta d = entry.getValue();
+            if (d.isZero()) {
+                continue;
+            }
+            // The first write of a day creates its row: concurrent first writes wait until it is committed
+            if (!existingRows.contains(key) && !lockCreation(key, held)) {
+                deferred.put(key, d);
+                continue;
+            }
+            dailyStatsRepository.add(key.restaurantId, key.day, d.bookings, d.covers, d.noShows, d.noShowFees,
+                    d.cancellations, d.cancellationFees, d.revenueCash, d.revenueCreditCard, d.revenuePaypal,
+                    d.payments, d.dwellSeconds, d.dwellCount);
+        }
+        return deferred;
+    }
+
+    // Take the creation lock of a row; false if it is still held by another transaction after the timeout
+    private boolean lockCreation(Key key, List<ReentrantLock> held) {
+        ReentrantLock lock = creationLocks.computeIfAbsent(key, k -> new ReentrantLock());
+        try {
+            if (!lock.tryLock(CREATION_LOCK_SECONDS, TimeUnit.SECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (existingRows.contains(key)) {
+            // Created by the transaction this one waited for
+            lock.unlock();
+            creationLocks.remove(key, lock);
+        } else {
+            held.add(lock);
+        }
+        return true;
+    }
+
+    // Retry deltas whose write timed out in a transaction of their own, after the one they belong to committed
+    private void writeLater(Map<Key, Delta> deltas, int attempt) {
+        if (attempt > WRITE_ATTEMPTS) {
+            System.err.println("Could not write daily statistics of " + deltas.keySet()
+                    + ", they are off until the next rebuild");
+            return;
+        }
+        newTransaction.executeWithoutResult(status -> {
+            PendingDeltas retry = new PendingDeltas(attempt);
+            retry.deltas.putAll(deltas);
+            TransactionSynchronizationManager.registerSynchronization(retry);
+        });
+    }
+
+    private final class PendingDeltas implements TransactionSynchronization {
+
+        private final Map<Key, Delta> deltas = new TreeMap<>();
+        private final List<ReentrantLock> held = new ArrayList<>();
+        private final int attempt;
+        private Map<Key, Delta> deferred = Map.of();
+        private boolean written;
+
+        PendingDeltas() {
+            this(1);
+        }
+
+        PendingDeltas(int attempt) {
+            this.attempt = attempt;
+        }
+
+        private DailyStatsService owner() {
+            return DailyStatsService.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            deferred = write(deltas, held);
+            written = true;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                for (Key key : deltas.keySet()) {
+                    if (!deferred.containsKey(key)) {
+                        existingRows.add(key);
+                    }
+                }
+            }
+            held.forEach(ReentrantLock::unlock);
+            for (Key key : deltas.keySet()) {
+                if (existingRows.contains(key)) {
+                    creationLocks.remove(key);
+                }
+            }
+            if (status == STATUS_COMMITTED && !deferred.isEmpty()) {
+                writeLater(deferred, attempt + 1);
+            }
+        }
+    }
+
+    /**
+     * Statistics of all restaurants for the days in [from, to]
+     */
+    public List<DailyStats> getDailyStats(LocalDate from, LocalDate to) {
+        return dailyStatsRepository.findByDateRange(from, to);
+    }
+
+    /**
+     * Statistics of all restaurants for one day
+     */
+    public List<DailyStats> getDailyStats(LocalDate day) {
+        return dailyStatsRepository.findByStatsDate(day);
+    }
+
+    /**
+     * Revenue per method and payment count over all days: cash, credit card, PayPal, count
+     */
+    public Object[] getRevenueTotals() {
+        return dailyStatsRepository.sumRevenue().get(0);
+    }
+
+    /**
+     * Recompute the whole rollup from the reservations (incl. archive) and completed payments
+     * @return number of rows
+     */
+    public long rebuild() {
+        long rows = transaction.execute(status -> {
+            dailyStatsRepository.deleteAllRows();
+            dailyStatsRepository.insertReservationFigures();
+            dailyStatsRepository.mergePaymentFigures();
+            return dailyStatsRepository.count();
+        });
+        existingRows.clear();
+        System.out.println("Rebuilt daily statistics: " + rows + " restaurant days");
+        return rows;
+    }
+
+    /**
+     * Give completed reservations from before completed_at existed a completion time,
+     * and fill the rollup on the first start after it was introduced
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        int backfilled = transaction.execute(status ->
+                dailyStatsRepository.backfillCompletedAt() + dailyStatsRepository.backfillArchivedCompletedAt());
+        if (backfilled > 0) {
+            System.out.println("Set completion time of " + backfilled + " completed reservations");
+        }
+        if (dailyStatsRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Figures one reservation adds to its day
+     */
+    public static final class Contribution {
+
+        private final Long restaurantId;
+        private final LocalDate day;
+        private final int guests;
+        private final ReservationStatus status;
+        private final BigDecimal fee;
+        private final long dwellSeconds;
+
+        private Contribution(Long restaurantId, LocalDateTime reservationDateTime, int guests, ReservationStatus status,
+                             BigDecimal fee, LocalDateTime checkedInAt, LocalDateTime completedAt) {
+            this.restaurantId = restaurantId;
+            this.day = reservationDateTime.toLocalDate();
+            this.guests = guests;
+            this.status = status;
+            this.fee = fee != null ? fee : BigDecimal.ZERO;
+            // Whole seconds passed between the two times, as counted by the rebuild (DATEDIFF)
+            this.dwellSeconds = status == ReservationStatus.COMPLETED && checkedInAt != null && completedAt != null
+                    ? ChronoUnit.SECONDS.between(checkedInAt.truncatedTo(ChronoUnit.SECONDS),
+                            completedAt.truncatedTo(ChronoUnit.SECONDS))
+                    : -1;
+        }
+
+        /**
+         * The same reservation after it was marked as no-show with the given fee
+         */
+        public Contribution asNoShow(BigDecimal noShowFee) {
+            return new Contribution(restaurantId, day.atStartOfDay(), guests, ReservationStatus.NO_SHOW,
+                    noShowFee, null, null);
+        }
+
+        private void addTo(Map<Key, Delta> deltas, int sign) {
+            Delta delta = deltas.computeIfAbsent(new Key(restaurantId, day), key -> new Delta());
+            BigDecimal signedFee = sign > 0 ? fee : fee.negate();
+            delta.bookings += sign;
+            delta.covers += (long) sign * guests;
+            if (status == ReservationStatus.NO_SHOW) {
+                delta.noShows += sign;
+                delta.noShowFees = delta.noShowFees.add(signedFee);
+            } else if (status == ReservationStatus.CANCELLED) {
+                delta.cancellations += sign;
+                delta.cancellationFees = delta.cancellationFees.add(signedFee);
+            } else if (dwellSeconds >= 0) {
+                delta.dwellSeconds += sign * dwellSeconds;
+                delta.dwellCount += sign;
+            }
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+
+        private final Long restaurantId;
+        private final LocalDate day;
+
+        private Key(Long restaurantId, LocalDate day) {
+            this.restaurantId = restaurantId;
+            this.day = day;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && restaurantId.equals(other.restaurantId) && day.equals(other.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(restaurantId, day);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int byRestaurant = restaurantId.compareTo(other.restaurantId);
+            return byRestaurant != 0 ? byRestaurant : day.compareTo(other.day);
+        }
+    }
+
+    private static final class Delta {
+
+        private long bookings;
+        private long covers;
+        private long noShows;
+        private BigDecimal noShowFees = BigDecimal.ZERO;
+        private long cancellations;
+        private BigDecimal cancellationFees = BigDecimal.ZERO;
+        private BigDecimal revenueCash = BigDecimal.ZERO;
+        private BigDecimal revenueCreditCard = BigDecimal.ZERO;
+        private BigDecimal revenuePaypal = BigDecimal.ZERO;
+        private long payments;
+        private long dwellSeconds;
+        private long dwellCount;
+
+        private void add(Delta other) {
+            bookings += other.bookings;
+            covers += other.covers;
+            noShows += other.noShows;
+            noShowFees = noShowFees.add(other.noShowFees);
+            cancellations += other.cancellations;
+            cancellationFees = cancellationFees.add(other.cancellationFees);
+            revenueCash = revenueCash.add(other.revenueCash);
+            revenueCreditCard = revenueCreditCard.add(other.revenueCreditCard);
+            revenuePaypal = revenuePaypal.add(other.revenuePaypal);
+            payments += other.payments;
+            dwellSeconds += other.dwellSeconds;
+            dwellCount += other.dwellCount;
+        }
+
+        private boolean isZero() {
+            return bookings == 0 && covers == 0 && noShows == 0 && noShowFees.signum() == 0 && cancellations == 0
+                    && cancellationFees.signum() == 0 && revenueCash.signum() == 0
+                    && revenueCreditCard.signum() == 0 && revenuePaypal.signum() == 0 && payments == 0
+                    && dwellSeconds == 0 && dwellCount == 0;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ExportFormat;
+import at.htlle.reap.model.Payment;
+import at.htlle.reap.model.ReservationSummary;
+import at.htlle.reap.repository.PaymentRepository;
+import at.htlle.reap.repository.ReservationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Export of reservations and payments for accounting (NDJSON or CSV).
+ * Rows are read from a database cursor and written to the output one by one,
+ * so memory use does not depend on the size of the exported range.
+ */
+@Service
+public class ExportService {
+
+    // Rows written between two flushes of the output
+    private static final int FLUSH_EVERY = 1000;
+
+    private static final List<String> RESERVATION_COLUMNS = List.of("id", "customerId", "restaurantId", "tableId",
+            "combinedTableIds", "reservationDateTime", "durationMinutes", "numberOfGuests", "status",
+            "groupReservation", "phoneNumber", "cancellationFee", "checkedInAt", "createdAt", "updatedAt");
+
+    private static final List<String> PAYMENT_COLUMNS = List.of("id", "reservationId", "amount", "paymentMethod",
+            "paymentStatus", "transactionId", "paidAt", "refundAmount", "createdAt", "updatedAt");
+
+    private final ReservationRepository reservationRepository;
+    private final PaymentRepository paymentRepository;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public ExportService(ReservationRepository reservationRepository, PaymentRepository paymentRepository,
+                         ObjectMapper objectMapper, EntityManager entityManager) {
+        this.reservationRepository = reservationRepository;
+        this.paymentRepository = paymentRepository;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Write all reservations with a reservation time in [from, to)
+     * @return number of exported rows
+     */
+    @Transactional(readOnly = true)
+    public long exportReservations(LocalDateTime from, LocalDateTime to, ExportFormat format, OutputStream output) {
+        try (Stream<ReservationSummary> rows = reservationRepository.streamSummaries(from, to)) {
+            return write(rows.iterator(), format, output, RESERVATION_COLUMNS, r -> Arrays.asList(
+                    r.getId(), r.getCustomerId(), r.getRestaurantId(), r.getTableId(), r.getCombinedTableIds(),
+                    r.getReservationDateTime(), r.getDurationMinutes(), r.getNumberOfGuests(), r.getStatus(),
+                    r.isGroupReservation(), r.getPhoneNumber(), r.getCancellationFee(), r.getCheckedInAt(),
+                    r.getCreatedAt(), r.getUpdatedAt()), null);
+        }
+    }
+
+    /**
+     * Write all payments created in [from, to)
+     * @return number of exported rows
+     */
+    @Transactional(readOnly = true)
+    public long exportPayments(LocalDateTime from, LocalDateTime to, ExportFormat format, OutputStream output) {
+        try (Stream<Payment> rows = paymentRepository.streamByCreatedAt(from, to)) {
+            return write(rows.iterator(), format, output, PAYMENT_COLUMNS, p -> Arrays.asList(
+                    p.getId(), p.getReservationId(), p.getAmount(), p.getPaymentMethod(), p.getPaymentStatus(),
+                    p.getTransactionId(), p.getPaidAt(), p.getRefundAmount(), p.getCreatedAt(), p.getUpdatedAt()),
+                    // Written payments are detached, otherwise the persistence context keeps every row
+                    entityManager::detach);
+        }
+    }
+
+    private <T> long write(Iterator<T> rows, ExportFormat format, OutputStream output, List<String> columns,
+                           Function<T, List<Object>> values, Consumer<T> afterWrite) {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            if (format == ExportFormat.CSV) {
+                writer.write(String.join(",", columns));
+                writer.write('\n');
+            }
+
+            long count = 0;
+            while (rows.hasNext()) {
+                T row = rows.next();
+                if (format == ExportFormat.CSV) {
+                    writer.write(csvLine(values.apply(row)));
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                }
+                writer.write('\n');
+                if (afterWrite != null) {
+                    afterWrite.accept(row);
+                }
+                if (++count % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Export failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static String csvLine(List<Object> values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                line.append(csvField(value.toString()));
+            }
+        }
+        return line.toString();
+    }
+
+    // Quote fields containing a separator, quote or line break (RFC 4180)
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
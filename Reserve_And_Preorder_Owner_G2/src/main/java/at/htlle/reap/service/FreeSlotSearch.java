@@ -0,0 +1,173 @@
+package at.htlle.reap.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bookable start times per day for a party size, computed from the in-memory calendar
+ * ({@link TableAvailabilityIndex}) and the seating candidates ({@link TableCombinationCache}).
+ * Results are cached per (restaurant, day, party size, duration). An entry is recomputed as soon as
+ * a booking on that day changes or the restaurant's tables change.
+ */
+@Component
+public class FreeSlotSearch {
+
+    // Longest range one request may ask for
+    public static final int MAX_DAYS = 31;
+
+    // Sane range of a stay: shorter ones would find every slot free, longer ones only fill the cache
+    public static final int MIN_DURATION_MINUTES = 15;
+    public static final int MAX_DURATION_MINUTES = 720;
+
+    // Cached days beyond this are pruned (past days first)
+    private static final int MAX_CACHED_DAYS = 10_000;
+
+    private final TableAvailabilityIndex availabilityIndex;
+    private final TableCombinationCache combinationCache;
+    private final LocalTime openingTime;
+    private final LocalTime closingTime;
+
+    private final Map<DayKey, DaySlots> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FreeSlotSearch(TableAvailabilityIndex availabilityIndex,
+                          TableCombinationCache combinationCache,
+                          @Value("${reap.opening-time:11:00}") LocalTime openingTime,
+                          @Value("${reap.closing-time:23:00}") LocalTime closingTime) {
+        this.availabilityIndex = availabilityIndex;
+        this.combinationCache = combinationCache;
+        this.openingTime = openingTime;
+        this.closingTime = closingTime;
+    }
+
+    /**
+     * Find all bookable start times for a party over a range of days
+     * @return start times per day (days without a free slot are included with an empty list)
+     */
+    public Map<LocalDate, List<LocalTime>> findFreeSlots(Long restaurantId, int numberOfGuests,
+                                                         LocalDate from, int days, int durationMinutes) {
+        if (numberOfGuests < 1) {
+            throw new RuntimeException("Number of guests must be at least 1");
+        }
+        if (days < 1 || days > MAX_DAYS) {
+            throw new RuntimeException("Days must be between 1 and " + MAX_DAYS);
+        }
+        if (durationMinutes < MIN_DURATION_MINUTES || durationMinutes > MAX_DURATION_MINUTES) {
+            throw new RuntimeException("Duration must be between " + MIN_DURATION_MINUTES + " and "
+                    + MAX_DURATION_MINUTES + " minutes");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<LocalDate, List<LocalTime>> result = new LinkedHashMap<>();
+        for (LocalDate day = from; day.isBefore(from.plusDays(days)); day = day.plusDays(1)) {
+            if (day.isBefore(now.toLocalDate())) {
+                continue;
+            }
+            List<LocalTime> slots = slotsOfDay(restaurantId, numberOfGuests, day, durationMinutes);
+            if (day.equals(now.toLocalDate())) {
+                LocalTime nowTime = now.toLocalTime();
+                slots = slots.stream().filter(time -> time.isAfter(nowTime)).toList();
+            }
+            result.put(day, slots);
+        }
+        return result;
+    }
+
+    private List<LocalTime> slotsOfDay(Long restaurantId, int numberOfGuests, LocalDate day, int durationMinutes) {
+        DayKey key = new DayKey(restaurantId, day, numberOfGuests, durationMinutes);
+
+        // Read the stamps before computing: a change during the computation makes the entry stale right away
+        long version = availabilityIndex.dayVersion(restaurantId, day);
+        List<TableCombinationCache.Candidate> candidates = combinationCache.getCandidates(restaurantId);
+
+        DaySlots cached = cache.get(key);
+        if (cached != null && cached.version == version && cached.candidates == candidates) {
+            return cached.startTimes;
+        }
+
+        List<LocalTime> startTimes = new ArrayList<>();
+        LocalDateTime start = day.atTime(openingTime);
+        LocalDateTime lastStart = closingTime.equals(LocalTime.MIDNIGHT)
+                ? day.plusDays(1).atStartOfDay().minusMinutes(durationMinutes)
+                : day.atTime(closingTime).minusMinutes(durationMinutes);
+        for (; !start.isAfter(lastStart); start = start.plusMinutes(SlotCalendar.SLOT_MINUTES)) {
+            LocalDateTime end = start.plusMinutes(durationMinutes);
+            if (availabilityIndex.findFreeCandidate(candidates, numberOfGuests, start, end) != null) {
+                startTimes.add(start.toLocalTime());
+            }
+        }
+
+        if (cache.size() >= MAX_CACHED_DAYS) {
+            prune();
+        }
+        DaySlots computed = new DaySlots(version, candidates, List.copyOf(startTimes));
+        cache.put(key, computed);
+        return computed.startTimes;
+    }
+
+    private void prune() {
+        LocalDate today = LocalDate.now();
+        cache.keySet().removeIf(key -> key.day.isBefore(today));
+        if (cache.size() >= MAX_CACHED_DAYS) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Cache key: one restaurant day for one party size and duration
+     */
+    private static final class DayKey {
+        final Long restaurantId;
+        final LocalDate day;
+        final int numberOfGuests;
+        final int durationMinutes;
+
+        DayKey(Long restaurantId, LocalDate day, int numberOfGuests, int durationMinutes) {
+            this.restaurantId = restaurantId;
+            this.day = day;
+            this.numberOfGuests = numberOfGuests;
+            this.durationMinutes = durationMinutes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DayKey)) {
+                return false;
+            }
+            DayKey other = (DayKey) o;
+            return numberOfGuests == other.numberOfGuests && durationMinutes == other.durationMinutes
+                    && Objects.equals(restaurantId, other.restaurantId) && day.equals(other.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(restaurantId, day, numberOfGuests, durationMinutes);
+        }
+    }
+
+    /**
+     * Computed start times plus the stamps they were computed from
+     */
+    private static final class DaySlots {
+        final long version;
+        final List<TableCombinationCache.Candidate> candidates;
+        final List<LocalTime> startTimes;
+
+        DaySlots(long version, List<TableCombinationCache.Candidate> candidates, List<LocalTime> startTimes) {
+            this.version = version;
+            this.candidates = candidates;
+            this.startTimes = startTimes;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package at.htlle.reap.service;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signer for check-in tokens.
+ * Each thread keeps its own initialized Mac (Mac is not thread-safe), so signing a token
+ * does not look up the provider or set up the key again. Signatures are compared in constant time.
+ * The tag methods work on a region of a caller's array and a per-thread buffer, without allocating.
+ */
+public final class HmacSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    public static final int SIGNATURE_LENGTH = 32;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[SIGNATURE_LENGTH]);
+
+    public HmacSigner(String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::createMac);
+        // Fail on startup rather than on the first token if the algorithm is missing
+        createMac();
+    }
+
+    /**
+     * Signature of the data (32 bytes)
+     */
+    public byte[] sign(byte[] data) {
+        // doFinal resets the Mac, so it is ready for the next call of this thread
+        return macs.get().doFinal(data);
+    }
+
+    /**
+     * URL-safe Base64 signature of the UTF-8 bytes of the data
+     */
+    public String signBase64(String data) {
+        return Base64.getUrlEncoder().encodeToString(sign(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Check a URL-safe Base64 signature of the data in constant time
+     */
+    public boolean verifyBase64(String data, String signature) {
+        byte[] expected = Base64.getUrlEncoder().encode(sign(data.getBytes(StandardCharsets.UTF_8)));
+        return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Write the first tagLength bytes of the signature of data[0, length) to data[length, length + tagLength)
+     */
+    public void signTag(byte[] data, int length, int tagLength) {
+        byte[] signature = signInto(data, length);
+        System.arraycopy(signature, 0, data, length, tagLength);
+    }
+
+    /**
+     * Check in constant time that data[length, length + tagLength) holds the first tagLength bytes
+     * of the signature of data[0, length)
+     */
+    public boolean verifyTag(byte[] data, int length, int tagLength) {
+        byte[] signature = signInto(data, length);
+        int difference = 0;
+        for (int i = 0; i < tagLength; i++) {
+            difference |= signature[i] ^ data[length + i];
+        }
+        return difference == 0;
+    }
+
+    /**
+     * Check a raw signature of the data in constant time
+     */
+    public boolean verify(byte[] data, byte[] signature) {
+        return MessageDigest.isEqual(sign(data), signature);
+    }
+
+    // Signature of data[0, length) in the buffer of this thread
+    private byte[] signInto(byte[] data, int length) {
+        Mac mac = macs.get();
+        byte[] signature = buffers.get();
+        try {
+            mac.update(data, 0, length);
+            mac.doFinal(signature, 0);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        return signature;
+    }
+
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Failed to initialize " + ALGORITHM, e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.repository.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Cluster-wide leases for scheduled jobs, stored in the job_leases table of the shared database.
+ * When several Owner instances run the same schedule, only the node that gets the lease runs the job.
+ *
+ * A lease is taken for lockAtMostFor: if the node dies during the run, another node takes it over
+ * after that time. After the run the lease is kept until lockAtLeastFor after its start, so a node
+ * whose schedule ticks a little later does not run the same tick again.
+ */
+@Component
+public class JobLeases {
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final TransactionTemplate leaseTransaction;
+    private final String nodeId;
+
+    @Autowired
+    public JobLeases(JobLeaseRepository jobLeaseRepository,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${reap.node-id:}") String nodeId) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        // Leases are committed on their own, independent of a transaction of the caller
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    /**
+     * Run the task if this node gets the lease of the job
+     * @return false if another node holds the lease (the task was not run)
+     */
+    public boolean runExclusive(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        if (!acquire(jobName, lockAtMostFor)) {
+            return false;
+        }
+        try {
+            task.run();
+        } finally {
+            release(jobName, lockAtLeastFor);
+        }
+        return true;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private boolean acquire(String jobName, Duration lockAtMostFor) {
+        long leaseMillis = lockAtMostFor.toMillis();
+        try {
+            Boolean acquired = leaseTransaction.execute(status ->
+                    jobLeaseRepository.takeOverExpired(jobName, nodeId, leaseMillis) == 1
+                            || jobLeaseRepository.insertIfAbsent(jobName, nodeId, leaseMillis) == 1);
+            return Boolean.TRUE.equals(acquired);
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the lease at the same moment
+            return false;
+        }
+    }
+
+    private void release(String jobName, Duration lockAtLeastFor) {
+        try {
+            leaseTransaction.executeWithoutResult(status ->
+                    jobLeaseRepository.release(jobName, nodeId, lockAtLeastFor.toMillis()));
+        } catch (RuntimeException e) {
+            // The lease then simply expires after lockAtMostFor
+            System.err.println("Error releasing lease of job " + jobName + ": " + e.getMessage());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -2,10 +2,12 @@ package at.htlle.reap.service;
 
 import at.htlle.reap.enums.PaymentMethod;
 import at.htlle.reap.enums.PaymentStatus;
+import at.htlle.reap.model.DailyStats;
 import at.htlle.reap.model.Payment;
 import at.htlle.reap.model.Reservation;
 import at.htlle.reap.repository.PaymentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,12 +25,14 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final ResService resService;
+    private final DailyStatsService dailyStats;
     private final Random random = new Random();
 
     @Autowired
-    public PaymentService(PaymentRepository paymentRepository, ResService resService) {
+    public PaymentService(PaymentRepository paymentRepository, ResService resService, DailyStatsService dailyStats) {
         this.paymentRepository = paymentRepository;
         this.resService = resService;
+        this.dailyStats = dailyStats;
     }
 
     /**
@@ -53,6 +57,7 @@ public class PaymentService {
         payment.setTransactionId("CASH_" + System.currentTimeMillis());
 
         Payment saved = paymentRepository.save(payment);
+        dailyStats.paymentCompleted(saved);
         System.out.println("Cash payment processed: " + saved);
 
         return saved;
@@ -90,6 +95,7 @@ public class PaymentService {
             payment.setTransactionId("CARD_" + UUID.randomUUID());
 
             Payment saved = paymentRepository.save(payment);
+            dailyStats.paymentCompleted(saved);
             System.out.println("Mock credit card payment processed: " + saved);
 
             return saved;
@@ -140,6 +146,7 @@ public class PaymentService {
             payment.setTransactionId("PAYPAL_" + UUID.randomUUID());
 
             Payment saved = paymentRepository.save(payment);
+            dailyStats.paymentCompleted(saved);
             System.out.println("Mock PayPal payment processed: " + saved);
 
             return saved;
@@ -173,6 +180,7 @@ public class PaymentService {
         payment.setUpdatedAt(LocalDateTime.now());
 
         Payment saved = paymentRepository.save(payment);
+        dailyStats.paymentRefunded(saved);
         System.out.println("Refunded payment: " + saved);
 
         return saved;
@@ -201,6 +209,13 @@ public class PaymentService {
         return paymentRepository.findAll();
     }
 
+    /**
+     * Get up to limit payments with an ID greater than afterId, ordered by ID
+     */
+    public List<Payment> getPaymentsAfter(long afterId, int limit) {
+        return paymentRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     /**
      * Get payments by status
      */
@@ -217,46 +232,27 @@ public class PaymentService {
     }
 
     /**
-     * Get payment statistics for dashboard
+     * Get payment statistics for dashboard (read from the daily statistics rollup)
      */
     public Map<String, Object> getPaymentStats() {
         Map<String, Object> stats = new HashMap<>();
 
-        List<Payment> allPayments = paymentRepository.findByPaymentStatus(PaymentStatus.COMPLETED);
-
-        // Total revenue
-        BigDecimal totalRevenue = allPayments.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Today's revenue
-        LocalDate today = LocalDate.now();
-        BigDecimal todayRevenue = allPayments.stream()
-                .filter(p -> p.getPaidAt() != null && p.getPaidAt().toLocalDate().equals(today))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Cash payments
-        BigDecimal cashPayments = allPayments.stream()
-                .filter(p -> p.getPaymentMethod() == PaymentMethod.CASH)
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Card payments
-        BigDecimal cardPayments = allPayments.stream()
-                .filter(p -> p.getPaymentMethod() == PaymentMethod.CREDIT_CARD)
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Payment count
-        int paymentCount = allPayments.size();
-
-        // Today's payment count
-        long todayCount = allPayments.stream()
-                .filter(p -> p.getPaidAt() != null && p.getPaidAt().toLocalDate().equals(today))
-                .count();
-
-        stats.put("totalRevenue", totalRevenue);
+        // Revenue per method and payment count over all days
+        Object[] totals = dailyStats.getRevenueTotals();
+        BigDecimal cashPayments = (BigDecimal) totals[0];
+        BigDecimal cardPayments = (BigDecimal) totals[1];
+        BigDecimal paypalPayments = (BigDecimal) totals[2];
+        long paymentCount = ((Number) totals[3]).longValue();
+
+        // Today's revenue and payment count
+        BigDecimal todayRevenue = BigDecimal.ZERO;
+        long todayCount = 0;
+        for (DailyStats day : dailyStats.getDailyStats(LocalDate.now())) {
+            todayRevenue = todayRevenue.add(day.getRevenue());
+            todayCount += day.getPayments();
+        }
+
+        stats.put("totalRevenue", cashPayments.add(cardPayments).add(paypalPayments));
         stats.put("todayRevenue", todayRevenue);
         stats.put("cashPayments", cashPayments);
         stats.put("cardPayments", cardPayments);
@@ -0,0 +1,160 @@
+package at.htlle.reap.service;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compact QR code images drawn straight from the module matrix: a 1-bit grayscale PNG
+ * (written here, one bit per pixel) and an SVG with one path. Both have a quiet zone of
+ * QUIET_ZONE modules and the same error correction level as QRCodeWriter (L).
+ */
+final class QRCodeImages {
+
+    static final int QUIET_ZONE = 4;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private QRCodeImages() {
+    }
+
+    static ByteMatrix encode(String content) {
+        try {
+            return Encoder.encode(content, ErrorCorrectionLevel.L).getMatrix();
+        } catch (WriterException e) {
+            throw new RuntimeException("Failed to generate QR code image", e);
+        }
+    }
+
+    /**
+     * 1-bit grayscale PNG (0 = black, 1 = white) with moduleSize pixels per module
+     */
+    static byte[] png1Bit(ByteMatrix matrix, int moduleSize) {
+        int modules = matrix.getWidth() + 2 * QUIET_ZONE;
+        int size = modules * moduleSize;
+        int rowBytes = (size + 7) / 8;
+
+        // Scanlines: filter byte followed by the packed pixels. Every module row is written once unfiltered and
+        // then moduleSize - 1 times with filter Up (2), whose bytes are all 0 since the row repeats
+        byte[] scanlines = new byte[(rowBytes + 1) * size];
+        byte[] row = new byte[rowBytes];
+        int position = 0;
+        for (int moduleRow = 0; moduleRow < modules; moduleRow++) {
+            Arrays.fill(row, (byte) 0xFF);
+            int y = moduleRow - QUIET_ZONE;
+            if (y >= 0 && y < matrix.getHeight()) {
+                for (int x = 0; x < matrix.getWidth(); x++) {
+                    if (matrix.get(x, y) == 1) {
+                        int from = (x + QUIET_ZONE) * moduleSize;
+                        for (int pixel = from; pixel < from + moduleSize; pixel++) {
+                            row[pixel >> 3] &= (byte) ~(0x80 >> (pixel & 7));
+                        }
+                    }
+                }
+            }
+            scanlines[position++] = 0;
+            System.arraycopy(row, 0, scanlines, position, rowBytes);
+            position += rowBytes;
+            for (int repeat = 1; repeat < moduleSize; repeat++) {
+                scanlines[position] = 2;
+                position += rowBytes + 1;
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(256 + scanlines.length / 8);
+        png.writeBytes(PNG_SIGNATURE);
+        byte[] header = new byte[13];
+        writeInt(header, 0, size);
+        writeInt(header, 4, size);
+        header[8] = 1;  // bit depth
+        header[9] = 0;  // color type: grayscale
+        writeChunk(png, "IHDR", header);
+        writeChunk(png, "IDAT", deflate(scanlines));
+        writeChunk(png, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    /**
+     * SVG with one stroked path; each run of dark modules in a row is one horizontal line of width 1,
+     * reached with a relative move from the end of the previous run.
+     * The drawing is moduleSize units per module, viewBox in modules.
+     */
+    static byte[] svg(ByteMatrix matrix, int moduleSize) {
+        int modules = matrix.getWidth() + 2 * QUIET_ZONE;
+        int size = modules * moduleSize;
+        StringBuilder svg = new StringBuilder(256 + matrix.getWidth() * matrix.getHeight() * 2);
+        svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(modules).append(' ').append(modules)
+                .append("\" width=\"").append(size).append("\" height=\"").append(size)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/>")
+                .append("<path stroke=\"#000\" d=\"");
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            int end = -1;
+            int x = 0;
+            while (x < matrix.getWidth()) {
+                if (matrix.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < matrix.getWidth() && matrix.get(x, y) == 1) {
+                    x++;
+                }
+                if (end < 0) {
+                    svg.append('M').append(start + QUIET_ZONE).append(' ').append(y + QUIET_ZONE).append(".5");
+                } else {
+                    svg.append('m').append(start - end).append(" 0");
+                }
+                svg.append('h').append(x - start);
+                end = x;
+            }
+        }
+        svg.append("\"/></svg>");
+        return svg.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeChunk(ByteArrayOutputStream png, String type, byte[] data) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] length = new byte[4];
+        writeInt(length, 0, data.length);
+        png.writeBytes(length);
+        png.writeBytes(typeBytes);
+        png.writeBytes(data);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        byte[] checksum = new byte[4];
+        writeInt(checksum, 0, (int) crc.getValue());
+        png.writeBytes(checksum);
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+}
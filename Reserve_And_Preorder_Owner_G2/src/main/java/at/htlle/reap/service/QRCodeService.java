@@ -1,22 +1,34 @@
 package at.htlle.reap.service;
 
+import at.htlle.reap.enums.QRImageFormat;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class QRCodeService {
@@ -24,93 +36,178 @@ public class QRCodeService {
     // Secret key for HMAC signing (in production, load from environment variable!)
     private static final String SECRET_KEY = "reap-secret-key-change-in-production";
 
-    // QR code dimensions
+    // QR code dimensions of the RGB PNG format
     private static final int QR_WIDTH = 300;
     private static final int QR_HEIGHT = 300;
 
+    // Pixels (PNG_1BIT) or SVG units per module of the compact formats
+    public static final int DEFAULT_MODULE_SIZE = 8;
+    public static final int MAX_MODULE_SIZE = 40;
+
     // Token validity period in days
     private static final int TOKEN_VALIDITY_DAYS = 7;
 
+    // Number of rendered QR images kept in memory
+    private static final int IMAGE_CACHE_SIZE = 1000;
+
+    // Threads for rendering the QR codes of a group in parallel
+    private static final int RENDER_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    // Token signatures (one initialized Mac per thread)
+    private final HmacSigner signer = new HmacSigner(SECRET_KEY);
+
+    // Rendered images by format, module size and encoded URL (which contains the token), least recently used dropped first
+    private final Map<String, QRImage> imageCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, QRImage> eldest) {
+                    return size() > IMAGE_CACHE_SIZE;
+                }
+            });
+
+    // Bounded pool for bulk rendering, so a large group cannot take all request threads
+    private final ExecutorService renderPool = Executors.newFixedThreadPool(RENDER_THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "qr-render-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+
     /**
      * Generate a secure token for check-in
-     * Format: Base64(reservationId:guestId:expiryTimestamp:signature)
+     * Format: binary version 2 token (see CheckinTokens), unpadded URL-safe Base64
      */
     public String generateCheckinToken(Long reservationId, Long guestId) {
         try {
-            // Calculate expiry timestamp (7 days from now)
-            long expiryTimestamp = LocalDateTime.now()
-                    .plusDays(TOKEN_VALIDITY_DAYS)
-                    .toEpochSecond(ZoneOffset.UTC);
+            // Expiry 7 days from now
+            long expiryEpochSecond = Instant.now().plus(TOKEN_VALIDITY_DAYS, ChronoUnit.DAYS).getEpochSecond();
 
-            // Create payload
-            String payload = reservationId + ":" +
-                           (guestId != null ? guestId : "0") + ":" +
-                           expiryTimestamp;
+            byte[] token = CheckinTokens.encode(signer, reservationId, guestId != null ? guestId : 0, expiryEpochSecond);
+            return TOKEN_ENCODER.encodeToString(token);
 
-            // Generate HMAC signature
-            String signature = generateHmacSignature(payload);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to generate token", e);
+        }
+    }
 
-            // Combine payload and signature
-            String tokenData = payload + ":" + signature;
+    /**
+     * Generate check-in tokens for the guests 1..count of a group reservation in one pass.
+     * All tokens share one expiry timestamp.
+     * @return tokens in guest order (index 0 belongs to guest ID 1)
+     */
+    public List<String> generateCheckinTokens(Long reservationId, int count) {
+        try {
+            long expiryEpochSecond = Instant.now().plus(TOKEN_VALIDITY_DAYS, ChronoUnit.DAYS).getEpochSecond();
 
-            // Encode to Base64
-            return Base64.getUrlEncoder().encodeToString(tokenData.getBytes(StandardCharsets.UTF_8));
+            List<String> tokens = new ArrayList<>(count);
+            for (long guestId = 1; guestId <= count; guestId++) {
+                tokens.add(TOKEN_ENCODER.encodeToString(
+                        CheckinTokens.encode(signer, reservationId, guestId, expiryEpochSecond)));
+            }
+            return tokens;
 
         } catch (Exception e) {
-            throw new RuntimeException("Failed to generate token", e);
+            throw new RuntimeException("Failed to generate tokens", e);
         }
     }
 
     /**
-     * Validate a token and extract reservation ID
+     * Validate a token and extract reservation ID.
+     * Accepts binary version 2 tokens and tokens of the old text format.
      */
     public ValidationResult validateToken(String token) {
         try {
-            // Decode from Base64
-            String tokenData = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
-
-            // Split into parts
-            String[] parts = tokenData.split(":");
-            if (parts.length != 4) {
-                return new ValidationResult(false, null, null, "Invalid token format");
+            // Decode from Base64 (the decoder accepts padded and unpadded input)
+            byte[] tokenBytes = Base64.getUrlDecoder().decode(token);
+            if (CheckinTokens.isVersion2(tokenBytes)) {
+                return validateVersion2(tokenBytes);
             }
+            return validateTextToken(new String(tokenBytes, StandardCharsets.UTF_8));
 
-            Long reservationId = Long.parseLong(parts[0]);
-            Long guestId = parts[1].equals("0") ? null : Long.parseLong(parts[1]);
-            long expiryTimestamp = Long.parseLong(parts[2]);
-            String providedSignature = parts[3];
+        } catch (Exception e) {
+            return new ValidationResult(false, null, null, "Token validation failed: " + e.getMessage());
+        }
+    }
 
-            // Check expiry
-            long currentTimestamp = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
-            if (currentTimestamp > expiryTimestamp) {
-                return new ValidationResult(false, null, null, "Token expired");
-            }
+    private ValidationResult validateVersion2(byte[] token) {
+        int guestAt = CheckinTokens.skipVarint(token, 1);
+        int expiryAt = CheckinTokens.skipVarint(token, guestAt);
+        int tagAt = CheckinTokens.skipVarint(token, expiryAt);
+        if (tagAt < 0 || tagAt + CheckinTokens.TAG_LENGTH != token.length) {
+            return new ValidationResult(false, null, null, "Invalid token format");
+        }
+
+        // Check expiry
+        long expiresAt = CheckinTokens.readVarint(token, expiryAt);
+        if (Instant.now().getEpochSecond() > expiresAt) {
+            return new ValidationResult(false, null, null, "Token expired");
+        }
 
-            // Verify signature
-            String payload = parts[0] + ":" + parts[1] + ":" + parts[2];
-            String expectedSignature = generateHmacSignature(payload);
+        // Verify the truncated signature (constant-time comparison)
+        if (!CheckinTokens.verify(signer, token)) {
+            return new ValidationResult(false, null, null, "Invalid signature");
+        }
 
-            if (!expectedSignature.equals(providedSignature)) {
-                return new ValidationResult(false, null, null, "Invalid signature");
-            }
+        long guestId = CheckinTokens.readVarint(token, guestAt);
+        return new ValidationResult(true, CheckinTokens.readVarint(token, 1), guestId == 0 ? null : guestId, "Valid",
+                expiresAt);
+    }
 
-            // Token is valid
-            return new ValidationResult(true, reservationId, guestId, "Valid");
+    /**
+     * Old format: Base64(reservationId:guestId:expiryTimestamp:signature), still accepted until
+     * all tokens of that format have expired
+     */
+    private ValidationResult validateTextToken(String tokenData) {
+        // Split into parts
+        String[] parts = tokenData.split(":");
+        if (parts.length != 4) {
+            return new ValidationResult(false, null, null, "Invalid token format");
+        }
 
-        } catch (Exception e) {
-            return new ValidationResult(false, null, null, "Token validation failed: " + e.getMessage());
+        Long reservationId = Long.parseLong(parts[0]);
+        Long guestId = parts[1].equals("0") ? null : Long.parseLong(parts[1]);
+        long expiryTimestamp = Long.parseLong(parts[2]);
+        String providedSignature = parts[3];
+
+        // Check expiry
+        long currentTimestamp = LocalDateTime.now().toEpochSecond(ZoneOffset.UTC);
+        if (currentTimestamp > expiryTimestamp) {
+            return new ValidationResult(false, null, null, "Token expired");
+        }
+
+        // Verify signature (constant-time comparison)
+        String payload = tokenData.substring(0, tokenData.lastIndexOf(':'));
+        if (!signer.verifyBase64(payload, providedSignature)) {
+            return new ValidationResult(false, null, null, "Invalid signature");
         }
+
+        // Token is valid (the old expiry is local time counted as UTC, converted to an epoch second)
+        return new ValidationResult(true, reservationId, guestId, "Valid",
+                Instant.now().getEpochSecond() + expiryTimestamp - currentTimestamp);
     }
 
     /**
-     * Generate HMAC-SHA256 signature
+     * Check if a token is a valid check-in token of this reservation and guest (null for the whole reservation)
      */
-    private String generateHmacSignature(String data) throws NoSuchAlgorithmException, InvalidKeyException {
-        Mac hmac = Mac.getInstance("HmacSHA256");
-        SecretKeySpec secretKeySpec = new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-        hmac.init(secretKeySpec);
-        byte[] signatureBytes = hmac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-        return Base64.getUrlEncoder().encodeToString(signatureBytes);
+    public boolean isCheckinTokenFor(String token, Long reservationId, Long guestId) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        ValidationResult result = validateToken(token);
+        return result.isValid()
+                && reservationId.equals(result.getReservationId())
+                && Objects.equals(guestId, result.getGuestId());
     }
 
     /**
@@ -119,6 +216,66 @@ public class QRCodeService {
      * @return Base64-encoded PNG image
      */
     public String generateQRCodeImage(String url) {
+        return Base64.getEncoder().encodeToString(getQRCodeImage(url).getData());
+    }
+
+    /**
+     * QR code PNG (300x300 RGB) of a URL, rendered once and then served from the cache
+     */
+    public QRImage getQRCodeImage(String url) {
+        return getQRCodeImage(url, QRImageFormat.PNG, DEFAULT_MODULE_SIZE);
+    }
+
+    /**
+     * QR code image of a URL in the given format, rendered once and then served from the cache
+     * @param moduleSize pixels or SVG units per module (not used for PNG)
+     */
+    public QRImage getQRCodeImage(String url, QRImageFormat format, int moduleSize) {
+        String key = cacheKey(url, format, moduleSize);
+        QRImage image = imageCache.get(key);
+        if (image == null) {
+            // Rendered outside the lock; a concurrent render of the same URL gives the same image
+            image = new QRImage(render(url, format, moduleSize), format.getContentType());
+            imageCache.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * QR code images of several URLs, in the same order. Cached images are taken as they are,
+     * the others are rendered in parallel on the render pool.
+     */
+    public List<QRImage> getQRCodeImages(List<String> urls, QRImageFormat format, int moduleSize) {
+        List<CompletableFuture<QRImage>> images = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            QRImage cached = imageCache.get(cacheKey(url, format, moduleSize));
+            images.add(cached != null
+                    ? CompletableFuture.completedFuture(cached)
+                    : CompletableFuture.supplyAsync(() -> getQRCodeImage(url, format, moduleSize), renderPool));
+        }
+        List<QRImage> result = new ArrayList<>(images.size());
+        for (CompletableFuture<QRImage> image : images) {
+            result.add(image.join());
+        }
+        return result;
+    }
+
+    private static String cacheKey(String url, QRImageFormat format, int moduleSize) {
+        return format == QRImageFormat.PNG ? url : format + "/" + moduleSize + "/" + url;
+    }
+
+    private byte[] render(String url, QRImageFormat format, int moduleSize) {
+        switch (format) {
+            case PNG_1BIT:
+                return QRCodeImages.png1Bit(QRCodeImages.encode(url), moduleSize);
+            case SVG:
+                return QRCodeImages.svg(QRCodeImages.encode(url), moduleSize);
+            default:
+                return renderPng(url);
+        }
+    }
+
+    private byte[] renderPng(String url) {
         try {
             // Create QR code
             QRCodeWriter qrCodeWriter = new QRCodeWriter();
@@ -127,16 +284,21 @@ public class QRCodeService {
             // Convert to PNG image
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-            byte[] imageBytes = outputStream.toByteArray();
-
-            // Encode to Base64
-            return Base64.getEncoder().encodeToString(imageBytes);
+            return outputStream.toByteArray();
 
         } catch (WriterException | IOException e) {
             throw new RuntimeException("Failed to generate QR code image", e);
         }
     }
 
+    /**
+     * Check-in URL of a token
+     * @param baseUrl Base URL of the application (e.g., http://localhost:8080)
+     */
+    public String getCheckinUrl(String baseUrl, String token) {
+        return baseUrl + "/checkin?token=" + token;
+    }
+
     /**
      * Generate complete check-in URL with QR code
      * @param baseUrl Base URL of the application (e.g., http://localhost:8080)
@@ -145,23 +307,65 @@ public class QRCodeService {
      * @return Check-in URL
      */
     public String generateCheckinUrl(String baseUrl, Long reservationId, Long guestId) {
-        String token = generateCheckinToken(reservationId, guestId);
-        return baseUrl + "/checkin?token=" + token;
+        return getCheckinUrl(baseUrl, generateCheckinToken(reservationId, guestId));
+    }
+
+    /**
+     * QR code for check-in (URL + PNG image) of an existing token
+     * @param baseUrl Base URL
+     * @param token Check-in token
+     * @return QRCodeData object with URL, Base64 image and the token
+     */
+    public QRCodeData getCheckinQRCode(String baseUrl, String token) {
+        return getCheckinQRCode(baseUrl, token, QRImageFormat.PNG, DEFAULT_MODULE_SIZE);
+    }
+
+    /**
+     * QR code for check-in (URL + image in the given format) of an existing token
+     * @param moduleSize pixels or SVG units per module (not used for PNG)
+     */
+    public QRCodeData getCheckinQRCode(String baseUrl, String token, QRImageFormat format, int moduleSize) {
+        String url = getCheckinUrl(baseUrl, token);
+        QRImage image = getQRCodeImage(url, format, moduleSize);
+        return new QRCodeData(url, Base64.getEncoder().encodeToString(image.getData()), image.getContentType(), token);
     }
 
     /**
-     * Generate QR code for check-in (URL + image)
+     * Generate QR code for check-in (URL + image) with a new token
      * @param baseUrl Base URL
      * @param reservationId Reservation ID
      * @param guestId Guest ID (null for single reservation)
      * @return QRCodeData object with URL and Base64 image
      */
     public QRCodeData generateCheckinQRCode(String baseUrl, Long reservationId, Long guestId) {
-        String url = generateCheckinUrl(baseUrl, reservationId, guestId);
-        String imageBase64 = generateQRCodeImage(url);
-        String token = generateCheckinToken(reservationId, guestId);
+        return getCheckinQRCode(baseUrl, generateCheckinToken(reservationId, guestId));
+    }
+
+    /**
+     * Rendered QR code image with its content type and entity tag for HTTP caching
+     */
+    public static class QRImage {
+        private final byte[] data;
+        private final String contentType;
+        private final String eTag;
+
+        public QRImage(byte[] data, String contentType) {
+            this.data = data;
+            this.contentType = contentType;
+            this.eTag = "\"" + Integer.toHexString(Arrays.hashCode(data)) + "-" + data.length + "\"";
+        }
+
+        public byte[] getData() {
+            return data;
+        }
 
-        return new QRCodeData(url, imageBase64, token);
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
     }
 
     /**
@@ -172,12 +376,18 @@ public class QRCodeService {
         private final Long reservationId;
         private final Long guestId;
         private final String message;
+        private final long expiresAt;
 
         public ValidationResult(boolean valid, Long reservationId, Long guestId, String message) {
+            this(valid, reservationId, guestId, message, 0);
+        }
+
+        public ValidationResult(boolean valid, Long reservationId, Long guestId, String message, long expiresAt) {
             this.valid = valid;
             this.reservationId = reservationId;
             this.guestId = guestId;
             this.message = message;
+            this.expiresAt = expiresAt;
         }
 
         public boolean isValid() {
@@ -195,6 +405,11 @@ public class QRCodeService {
         public String getMessage() {
             return message;
         }
+
+        // Expiry of a valid token (epoch second)
+        public long getExpiresAt() {
+            return expiresAt;
+        }
     }
 
     /**
@@ -203,11 +418,13 @@ public class QRCodeService {
     public static class QRCodeData {
         private final String url;
         private final String imageBase64;
+        private final String contentType;
         private final String token;
 
-        public QRCodeData(String url, String imageBase64, String token) {
+        public QRCodeData(String url, String imageBase64, String contentType, String token) {
             this.url = url;
             this.imageBase64 = imageBase64;
+            this.contentType = contentType;
             this.token = token;
         }
 
@@ -219,12 +436,16 @@ public class QRCodeService {
             return imageBase64;
         }
 
+        public String getContentType() {
+            return contentType;
+        }
+
         public String getToken() {
             return token;
         }
 
         public String getDataUrl() {
-            return "data:image/png;base64," + imageBase64;
+            return "data:" + contentType + ";base64," + imageBase64;
         }
     }
 }
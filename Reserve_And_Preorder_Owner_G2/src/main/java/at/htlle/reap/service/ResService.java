@@ -1,15 +1,24 @@
 package at.htlle.reap.service;
 
+import at.htlle.reap.config.PooledSequenceGenerator;
 import at.htlle.reap.enums.ReservationStatus;
 import at.htlle.reap.enums.TableStatus;
 import at.htlle.reap.model.GroupMember;
 import at.htlle.reap.model.Reservation;
+import at.htlle.reap.model.ReservationSummary;
 import at.htlle.reap.model.Table;
 import at.htlle.reap.repository.ReservationRepository;
 import at.htlle.reap.repository.TableRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
@@ -17,15 +26,47 @@ import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
 @Service
 public class ResService {
 
     private final ReservationRepository reservationRepository;
     private final TableRepository tableRepository;
+    private final TableService tableService;
     private final QRCodeService qrCodeService;
+    private final TableAvailabilityIndex availabilityIndex;
+    private final TableCombinationCache combinationCache;
+    private final TableLockStripes tableLocks;
+    private final FreeSlotSearch freeSlotSearch;
+    private final Waitlist waitlist;
+    private final ReservationChangeFeed changeFeed;
+    private final ReservationDeadlines deadlines;
+    private final TableCleaningSchedule cleaningSchedule;
+    private final DailyStatsService dailyStats;
+    private final EntityManager entityManager;
+
+    // Promotions run after the releasing transaction committed, each in a transaction of its own
+    private final TransactionTemplate newTransaction;
+
+    // Absence fee charged per guest for a no-show
+    private static final BigDecimal NO_SHOW_FEE_PER_GUEST = new BigDecimal("10");
+
+    // How often allocation searches again after a candidate was taken by a concurrent booking
+    private static final int MAX_ALLOCATION_ATTEMPTS = 5;
+
+    // Check-in of a reservation that is already checked in (also used for replays rejected from memory)
+    public static final String ALREADY_CHECKED_IN = "QR-Code bereits verwendet. Diese Reservierung wurde bereits eingecheckt.";
 
     // Base URL for QR codes (in production, load from configuration)
     private static final String BASE_URL = "http://localhost:8083";
@@ -36,17 +77,49 @@ public class ResService {
     @Autowired
     public ResService(ReservationRepository reservationRepository,
                      TableRepository tableRepository,
-                     QRCodeService qrCodeService) {
+                     TableService tableService,
+                     QRCodeService qrCodeService,
+                     TableAvailabilityIndex availabilityIndex,
+                     TableCombinationCache combinationCache,
+                     TableLockStripes tableLocks,
+                     FreeSlotSearch freeSlotSearch,
+                     Waitlist waitlist,
+                     ReservationChangeFeed changeFeed,
+                     ReservationDeadlines deadlines,
+                     TableCleaningSchedule cleaningSchedule,
+                     DailyStatsService dailyStats,
+                     EntityManager entityManager,
+                     PlatformTransactionManager transactionManager) {
         this.reservationRepository = reservationRepository;
         this.tableRepository = tableRepository;
+        this.tableService = tableService;
         this.qrCodeService = qrCodeService;
+        this.availabilityIndex = availabilityIndex;
+        this.combinationCache = combinationCache;
+        this.tableLocks = tableLocks;
+        this.freeSlotSearch = freeSlotSearch;
+        this.waitlist = waitlist;
+        this.changeFeed = changeFeed;
+        this.deadlines = deadlines;
+        this.cleaningSchedule = cleaningSchedule;
+        this.dailyStats = dailyStats;
+        this.entityManager = entityManager;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     /**
      * Get all reservations
      */
-    public List<Reservation> getAllReservations() {
-        return reservationRepository.findAll();
+    public List<ReservationSummary> getAllReservations() {
+        return reservationRepository.findAllSummaries();
+    }
+
+    /**
+     * Get up to limit reservations with an ID greater than afterId, ordered by ID
+     */
+    public List<ReservationSummary> getReservationsAfter(long afterId, int limit) {
+        return reservationRepository.findSummariesAfter(afterId, Limit.of(limit));
     }
 
     /**
@@ -57,18 +130,68 @@ public class ResService {
                 .orElseThrow(() -> new RuntimeException("Reservation not found with id: " + id));
     }
 
+    /**
+     * Check-in token of a reservation (guestId null) or of a guest of a group reservation.
+     * Tokens are stored when the reservation is created, and the stored token is reused while it is
+     * valid, so the QR code (and its cached image) stays the same between views.
+     * Note that reading can write: a token that expired (7 days after it was issued) or is
+     * missing (reservations from before tokens were stored) is replaced and stored in this transaction.
+     * Fails for a guest ID that does not belong to the reservation.
+     */
+    @Transactional
+    public String getCheckinToken(Long reservationId, Long guestId) {
+        Reservation reservation = getReservationById(reservationId);
+        if (guestId == null) {
+            if (!qrCodeService.isCheckinTokenFor(reservation.getQrCode(), reservationId, null)) {
+                reservation.setQrCode(qrCodeService.generateCheckinToken(reservationId, null));
+            }
+            return reservation.getQrCode();
+        }
+
+        // Guest IDs are the positions of the members (1..n), see createGroupReservation
+        List<GroupMember> members = reservation.getGroupMembers();
+        if (guestId < 1 || guestId > members.size()) {
+            throw new RuntimeException("Guest " + guestId + " not found in reservation " + reservationId);
+        }
+        GroupMember member = members.get(guestId.intValue() - 1);
+        if (!qrCodeService.isCheckinTokenFor(member.getQrCode(), reservationId, guestId)) {
+            member.setQrCode(qrCodeService.generateCheckinToken(reservationId, guestId));
+        }
+        return member.getQrCode();
+    }
+
+    /**
+     * Check-in tokens of all guests of a group reservation, in guest order (guest IDs 1..n).
+     * Stored tokens are reused while they are valid; expired or missing ones are replaced and stored,
+     * like in getCheckinToken.
+     */
+    @Transactional
+    public List<String> getGroupCheckinTokens(Long reservationId) {
+        List<GroupMember> members = getReservationById(reservationId).getGroupMembers();
+        List<String> tokens = new ArrayList<>(members.size());
+        for (int i = 0; i < members.size(); i++) {
+            GroupMember member = members.get(i);
+            long guestId = i + 1;
+            if (!qrCodeService.isCheckinTokenFor(member.getQrCode(), reservationId, guestId)) {
+                member.setQrCode(qrCodeService.generateCheckinToken(reservationId, guestId));
+            }
+            tokens.add(member.getQrCode());
+        }
+        return tokens;
+    }
+
     /**
      * Get reservations by customer ID
      */
-    public List<Reservation> getReservationsByCustomerId(Long customerId) {
-        return reservationRepository.findByCustomerId(customerId);
+    public List<ReservationSummary> getReservationsByCustomerId(Long customerId) {
+        return reservationRepository.findSummariesByCustomerId(customerId);
     }
 
     /**
      * Get reservations by restaurant ID
      */
-    public List<Reservation> getReservationsByRestaurantId(Long restaurantId) {
-        return reservationRepository.findByRestaurantId(restaurantId);
+    public List<ReservationSummary> getReservationsByRestaurantId(Long restaurantId) {
+        return reservationRepository.findSummariesByRestaurantId(restaurantId);
     }
 
     /**
@@ -79,42 +202,102 @@ public class ResService {
         // Set initial status
         reservation.setStatus(ReservationStatus.PENDING);
 
-        // Find available table
-        List<Table> availableTables = tableRepository.findAvailableTablesWithCapacity(
-                reservation.getRestaurantId(),
-                reservation.getNumberOfGuests()
-        );
+        Reservation booked = allocateTables(reservation, this::persistNewReservation);
+        if (booked != null) {
+            return booked;
+        }
 
-        if (!availableTables.isEmpty()) {
-            Table table = availableTables.get(0);
-            reservation.setTableId(table.getId());
+        // No table free: the party waits for a cancellation (see promoteWaiting)
+        Reservation saved = persistNewReservation(reservation);
+        runAfterCommit(() -> waitlist.add(saved));
+        return saved;
+    }
 
-            // Reserve the table
-            table.setStatus(TableStatus.RESERVED);
-            tableRepository.save(table);
+    /**
+     * Find a table (or group of adjacent tables) that is free for the whole reserved time window
+     * and book it with the given action. The candidate is checked again while holding its table locks;
+     * if a concurrent booking took it in the meantime, the search is repeated.
+     * @return result of the booking action, or null if no candidate is free
+     */
+    private Reservation allocateTables(Reservation reservation, UnaryOperator<Reservation> book) {
+        LocalDateTime start = reservation.getReservationDateTime();
+        LocalDateTime end = start.plusMinutes(TableAvailabilityIndex.effectiveDuration(reservation));
+        List<TableCombinationCache.Candidate> candidates =
+                new ArrayList<>(combinationCache.getCandidates(reservation.getRestaurantId()));
+
+        for (int attempt = 0; attempt < MAX_ALLOCATION_ATTEMPTS; attempt++) {
+            TableCombinationCache.Candidate candidate = availabilityIndex.findFreeCandidate(
+                    candidates,
+                    reservation.getNumberOfGuests(),
+                    start, end
+            );
+            if (candidate == null) {
+                break;
+            }
 
-            // Update status to CONFIRMED
-            reservation.setStatus(ReservationStatus.CONFIRMED);
+            try (TableLockStripes.Held ignored = tableLocks.lockAll(candidate.getTableIds())) {
+                if (availabilityIndex.isFree(candidate, start, end)) {
+                    if (!claimTables(reservation, candidate.getTableIds(), start, end)) {
+                        // Booked on another node: free in this node's calendar, so do not offer it again
+                        candidates.remove(candidate);
+                        continue;
+                    }
+                    List<Long> tableIds = candidate.getTableIds();
+                    reservation.setTableId(tableIds.get(0));
+                    reservation.setCombinedTableIds(tableIds.size() > 1
+                            ? joinIds(tableIds.subList(1, tableIds.size()))
+                            : null);
+
+                    // Update status to CONFIRMED
+                    reservation.setStatus(ReservationStatus.CONFIRMED);
+
+                    // Book while still holding the locks, so no other booking can see the tables as free
+                    return book.apply(reservation);
+                }
+            }
         }
+        return null;
+    }
 
-        // Save reservation first to get ID
-        Reservation saved = reservationRepository.save(reservation);
+    /**
+     * Database side of a booking: lock the rows of the tables until the transaction ends and check
+     * that no committed booking of another reservation overlaps [start, end).
+     * The lock stripes and the calendar only see bookings of this node; with several nodes, a booking
+     * of the same tables on another node holds the row locks until it commits, so it is seen here.
+     * @return false if the tables are taken in the database
+     */
+    private boolean claimTables(Reservation reservation, List<Long> tableIds, LocalDateTime start, LocalDateTime end) {
+        tableRepository.lockAllById(tableIds);
+        // No booking lasts a day, so earlier ones cannot reach into [start, end)
+        List<ReservationSummary> bookings = reservationRepository.findSummariesStartingBetween(
+                reservation.getRestaurantId(), TableAvailabilityIndex.BLOCKING_STATUSES, start.minusDays(1), end);
+        for (ReservationSummary booking : bookings) {
+            if (booking.getId().equals(reservation.getId()) || booking.getTableId() == null) {
+                continue;
+            }
+            LocalDateTime bookingEnd = booking.getReservationDateTime()
+                    .plusMinutes(TableAvailabilityIndex.effectiveDuration(booking.getDurationMinutes()));
+            if (bookingEnd.isAfter(start) && !Collections.disjoint(booking.getAssignedTableIds(), tableIds)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        // Generate QR code for check-in
-        String qrToken = qrCodeService.generateCheckinToken(saved.getId(), null);
-        saved.setQrCode(qrToken);
-        saved = reservationRepository.save(saved);
+    private Reservation persistNewReservation(Reservation reservation) {
+        // Take the ID from the pooled sequence first, so the QR token is part of the one INSERT
+        reservation.setId(PooledSequenceGenerator.nextId(entityManager, reservation));
+        reservation.setQrCode(qrCodeService.generateCheckinToken(reservation.getId(), null));
+        Reservation saved = reservationRepository.save(reservation);
+        registerBooking(saved);
+        dailyStats.reservationChanged(null, DailyStatsService.contributionOf(saved));
+        if (saved.getStatus() == ReservationStatus.CONFIRMED) {
+            scheduleNoShowAfterCommit(saved);
+        }
 
-        // Ensure table has currentReservationId once reservation ID is known
+        // Link the tables unless they are currently held by another reservation
         if (saved.getTableId() != null) {
-            Table table = tableRepository.findById(saved.getTableId()).orElse(null);
-            if (table != null) {
-                table.setCurrentReservationId(saved.getId());
-                if (table.getStatus() == null || table.getStatus() == TableStatus.AVAILABLE) {
-                    table.setStatus(TableStatus.RESERVED);
-                }
-                tableRepository.save(table);
-            }
+            tableRepository.reserveIfAvailable(saved.getAssignedTableIds(), saved.getId());
         }
 
         System.out.println("Created reservation: " + saved + " with QR token");
@@ -123,12 +306,48 @@ public class ResService {
     }
 
     /**
-     * Update reservation table assignment
+     * Update reservation table assignment.
+     * A new table is booked like in allocateTables: checked while holding its table lock, in the calendar
+     * and in the database, and refused if another reservation holds it during the reserved time window.
+     * @return false if the table is taken for the time window (nothing is changed)
      */
     @Transactional
-    public void updateReservationTable(Long reservationId, Long tableId) {
+    public boolean updateReservationTable(Long reservationId, Long tableId) {
         Reservation reservation = getReservationById(reservationId);
+        if (tableId == null || reservation.getAssignedTableIds().contains(tableId)) {
+            // Unassigned, or the table is already booked by this reservation
+            assignTable(reservation, tableId);
+            return true;
+        }
+
+        LocalDateTime start = reservation.getReservationDateTime();
+        LocalDateTime end = start.plusMinutes(TableAvailabilityIndex.effectiveDuration(reservation));
+        try (TableLockStripes.Held ignored = tableLocks.lockAll(List.of(tableId))) {
+            if (!availabilityIndex.isTableAvailable(reservation.getRestaurantId(), tableId, start, end)
+                    || !claimTables(reservation, List.of(tableId), start, end)) {
+                System.out.println("Table " + tableId + " is taken for reservation " + reservationId);
+                return false;
+            }
+            // Booked while still holding the lock, like in allocateTables
+            assignTable(reservation, tableId);
+            return true;
+        }
+    }
+
+    private void assignTable(Reservation reservation, Long tableId) {
+        Long reservationId = reservation.getId();
+        if (tableId != null) {
+            // Rejects a table currently held by another reservation (rolls back the whole change)
+            tableService.assignReservation(tableId, reservationId);
+        }
+
+        // Free tables that are no longer part of the assignment
+        List<Long> previousTables = reservation.getAssignedTableIds();
+        previousTables.remove(tableId);
+        releaseTables(reservationId, previousTables, TableStatus.AVAILABLE);
+
         reservation.setTableId(tableId);
+        reservation.setCombinedTableIds(null);
         
         // If status is PENDING, update to CONFIRMED
         if (reservation.getStatus() == ReservationStatus.PENDING) {
@@ -136,16 +355,12 @@ public class ResService {
         }
         
         reservationRepository.save(reservation);
-
+        availabilityIndex.register(reservation);
         if (tableId != null) {
-            Table table = tableRepository.findById(tableId).orElse(null);
-            if (table != null) {
-                table.setCurrentReservationId(reservationId);
-                if (table.getStatus() == null || table.getStatus() == TableStatus.AVAILABLE) {
-                    table.setStatus(TableStatus.RESERVED);
-                }
-                tableRepository.save(table);
-            }
+            runAfterCommit(() -> waitlist.remove(reservationId));
+        }
+        if (reservation.getStatus() == ReservationStatus.CONFIRMED && reservation.getCheckedInAt() == null) {
+            scheduleNoShowAfterCommit(reservation);
         }
         System.out.println("Updated reservation " + reservationId + " with table " + tableId);
     }
@@ -160,19 +375,15 @@ public class ResService {
         // Create reservation first
         Reservation saved = createReservation(reservation);
 
-        // Add group members with individual QR codes
-        long guestIdCounter = 1;
-        for (String email : guestEmails) {
-            GroupMember member = new GroupMember(email, email);
-
-            // Generate individual QR code for this group member
-            String memberQrToken = qrCodeService.generateCheckinToken(saved.getId(), guestIdCounter);
-            member.setQrCode(memberQrToken);
-
+        // Individual QR codes for all guests in one pass (guest IDs 1..n)
+        List<String> memberTokens = qrCodeService.generateCheckinTokens(saved.getId(), guestEmails.size());
+        for (int i = 0; i < guestEmails.size(); i++) {
+            GroupMember member = new GroupMember(guestEmails.get(i), guestEmails.get(i));
+            member.setQrCode(memberTokens.get(i));
             saved.addGroupMember(member);
-            guestIdCounter++;
         }
 
+        // Members get pooled sequence IDs and are inserted in JDBC batches together with the reservation
         return reservationRepository.save(saved);
     }
 
@@ -189,20 +400,17 @@ public class ResService {
             throw new RuntimeException("Cannot cancel reservation with status: " + reservation.getStatus());
         }
 
+        DailyStatsService.Contribution before = DailyStatsService.contributionOf(reservation);
+
         // Calculate cancellation fee
         BigDecimal fee = calculateCancellationFee(reservation, cancelTime);
         reservation.setCancellationFee(fee);
         reservation.setStatus(ReservationStatus.CANCELLED);
+        releaseBookingAfterCommit(reservation);
+        dailyStats.reservationChanged(before, DailyStatsService.contributionOf(reservation));
 
-        // Free up table
-        if (reservation.getTableId() != null) {
-            Table table = tableRepository.findById(reservation.getTableId()).orElse(null);
-            if (table != null) {
-                table.setStatus(TableStatus.AVAILABLE);
-                table.setCurrentReservationId(null);
-                tableRepository.save(table);
-            }
-        }
+        // Free up tables
+        releaseTables(reservation, TableStatus.AVAILABLE);
 
         System.out.println("Cancelled reservation " + id + " with fee: " + fee + "€");
         cancelCookOrdersForReservation(id);
@@ -237,6 +445,144 @@ public class ResService {
         public Long id;
     }
 
+    /**
+     * Add a new booking to the availability calendar right away (so concurrent bookings see it),
+     * and drop it again if the surrounding transaction rolls back
+     */
+    private void registerBooking(Reservation reservation) {
+        availabilityIndex.register(reservation);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            Long reservationId = reservation.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        availabilityIndex.release(reservationId);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Free a booking in the availability calendar only once the transaction has committed,
+     * so a concurrent booking cannot take the tables of a change that is later rolled back.
+     * Then the reservation leaves the waitlist and its freed tables are offered to waiting parties.
+     */
+    private void releaseBookingAfterCommit(Reservation reservation) {
+        releaseBookingAfterCommit(reservation.getId(), reservation.getRestaurantId(), reservation.getTableId() != null,
+                reservation.getReservationDateTime(), reservation.getDurationMinutes());
+    }
+
+    private void releaseBookingAfterCommit(Long reservationId, Long restaurantId, boolean hadTables,
+                                           LocalDateTime start, int durationMinutes) {
+        LocalDateTime end = start.plusMinutes(TableAvailabilityIndex.effectiveDuration(durationMinutes));
+
+        runAfterCommit(() -> {
+            availabilityIndex.release(reservationId);
+            waitlist.remove(reservationId);
+            deadlines.cancel(reservationId);
+            if (hadTables) {
+                promoteWaiting(restaurantId, start, end);
+            }
+        });
+    }
+
+    private void scheduleNoShowAfterCommit(Reservation reservation) {
+        Long reservationId = reservation.getId();
+        LocalDateTime reservationDateTime = reservation.getReservationDateTime();
+        runAfterCommit(() -> deadlines.scheduleNoShow(reservationId, reservationDateTime));
+    }
+
+    private void scheduleTimeoutAfterCommit(Reservation reservation) {
+        Long reservationId = reservation.getId();
+        LocalDateTime checkedInAt = reservation.getCheckedInAt();
+        runAfterCommit(() -> deadlines.scheduleTimeout(reservationId, checkedInAt));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Give tables freed for [start, end) to waiting parties whose time window overlaps it, best first.
+     * Several parties can be promoted if the freed tables (or other free tables) fit them.
+     */
+    private void promoteWaiting(Long restaurantId, LocalDateTime start, LocalDateTime end) {
+        for (Waitlist.Entry entry : waitlist.overlapping(restaurantId, start, end)) {
+            try {
+                Reservation promoted = newTransaction.execute(status -> promote(entry.getReservationId()));
+                if (promoted != null) {
+                    waitlist.remove(promoted.getId());
+                    System.out.println("Promoted waiting reservation " + promoted.getId()
+                            + " to table " + promoted.getTableId());
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Error promoting reservation " + entry.getReservationId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Reservation promote(Long reservationId) {
+        Reservation reservation = reservationRepository.findById(reservationId).orElse(null);
+        if (reservation == null || reservation.getStatus() != ReservationStatus.PENDING
+                || reservation.getTableId() != null) {
+            waitlist.remove(reservationId);
+            return null;
+        }
+        return allocateTables(reservation, this::bookWaitingReservation);
+    }
+
+    private Reservation bookWaitingReservation(Reservation reservation) {
+        Reservation saved = reservationRepository.save(reservation);
+        registerBooking(saved);
+        scheduleNoShowAfterCommit(saved);
+        tableRepository.reserveIfAvailable(saved.getAssignedTableIds(), saved.getId());
+        return saved;
+    }
+
+    /**
+     * Set all tables of a reservation to the given status and unlink them.
+     * A table is only freed by the reservation it is currently linked to,
+     * so releasing a future booking does not clear a table that is in use by another one.
+     */
+    private void releaseTables(Reservation reservation, TableStatus newStatus) {
+        releaseTables(reservation.getId(), reservation.getAssignedTableIds(), newStatus);
+    }
+
+    private void releaseTables(Long reservationId, List<Long> tableIds, TableStatus newStatus) {
+        for (Table table : tableRepository.findAllById(tableIds)) {
+            if (table.getStatus() == TableStatus.CLEANING && newStatus == TableStatus.AVAILABLE) {
+                continue; // becomes available at its cleaning deadline
+            }
+            if (table.getCurrentReservationId() == null || table.getCurrentReservationId().equals(reservationId)) {
+                cleaningSchedule.setStatus(table, newStatus);
+                table.setCurrentReservationId(null);
+                tableRepository.save(table);
+            }
+        }
+    }
+
+    private static String joinIds(List<Long> ids) {
+        StringBuilder sb = new StringBuilder();
+        for (Long id : ids) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(id);
+        }
+        return sb.toString();
+    }
+
     /**
      * Calculate cancellation fee based on time until reservation
      * Business Rule: Free if >= 30 min before, otherwise 10€ (single) or 20€ (group)
@@ -261,7 +607,7 @@ public class ResService {
 
         // Check if already checked in
         if (reservation.getStatus() == ReservationStatus.CHECKED_IN) {
-            throw new RuntimeException("QR-Code bereits verwendet. Diese Reservierung wurde bereits eingecheckt.");
+            throw new RuntimeException(ALREADY_CHECKED_IN);
         }
 
         if (reservation.getStatus() != ReservationStatus.CONFIRMED &&
@@ -276,14 +622,18 @@ public class ResService {
 
         reservation.setStatus(ReservationStatus.CHECKED_IN);
         reservation.setCheckedInAt(LocalDateTime.now());
+        availabilityIndex.register(reservation);
+        scheduleTimeoutAfterCommit(reservation);
 
         // Update table status and link reservation
         Table table = tableRepository.findById(reservation.getTableId())
             .orElseThrow(() -> new RuntimeException("Table not found: " + reservation.getTableId()));
-        
-        table.setStatus(TableStatus.OCCUPIED);
-        table.setCurrentReservationId(reservationId);
-        tableRepository.save(table);
+
+        for (Table assigned : tableRepository.findAllById(reservation.getAssignedTableIds())) {
+            cleaningSchedule.setStatus(assigned, TableStatus.OCCUPIED);
+            assigned.setCurrentReservationId(reservationId);
+            tableRepository.save(assigned);
+        }
 
         System.out.println("Checked in reservation: " + reservationId + " at table " + table.getTableNumber());
         return reservationRepository.save(reservation);
@@ -309,9 +659,12 @@ public class ResService {
         walkIn.setCustomerId(0L); // Virtual customer for walk-in
         
         Reservation saved = reservationRepository.save(walkIn);
+        availabilityIndex.register(saved);
+        scheduleTimeoutAfterCommit(saved);
+        dailyStats.reservationChanged(null, DailyStatsService.contributionOf(saved));
 
         // Mark table as occupied
-        table.setStatus(TableStatus.OCCUPIED);
+        cleaningSchedule.setStatus(table, TableStatus.OCCUPIED);
         table.setCurrentReservationId(saved.getId());
         tableRepository.save(table);
 
@@ -331,17 +684,14 @@ public class ResService {
             throw new RuntimeException("Cannot complete reservation with status: " + reservation.getStatus());
         }
 
+        DailyStatsService.Contribution before = DailyStatsService.contributionOf(reservation);
         reservation.setStatus(ReservationStatus.COMPLETED);
+        reservation.setCompletedAt(LocalDateTime.now()); // end of the dwell time
+        releaseBookingAfterCommit(reservation);
+        dailyStats.reservationChanged(before, DailyStatsService.contributionOf(reservation));
 
-        // Free up table
-        if (reservation.getTableId() != null) {
-            Table table = tableRepository.findById(reservation.getTableId()).orElse(null);
-            if (table != null) {
-                table.setStatus(TableStatus.CLEANING);
-                table.setCurrentReservationId(null);
-                tableRepository.save(table);
-            }
-        }
+        // Free up tables
+        releaseTables(reservation, TableStatus.CLEANING);
 
         System.out.println("Completed reservation: " + reservationId);
         return reservationRepository.save(reservation);
@@ -354,27 +704,72 @@ public class ResService {
     @Transactional
     public Reservation markAsNoShow(Long reservationId) {
         Reservation reservation = getReservationById(reservationId);
+        DailyStatsService.Contribution before = DailyStatsService.contributionOf(reservation);
 
         reservation.setStatus(ReservationStatus.NO_SHOW);
+        releaseBookingAfterCommit(reservation);
 
         // Calculate absence fee: 10€ per guest
-        BigDecimal absenceFee = new BigDecimal(reservation.getNumberOfGuests() * 10);
+        BigDecimal absenceFee = NO_SHOW_FEE_PER_GUEST.multiply(BigDecimal.valueOf(reservation.getNumberOfGuests()));
         reservation.setCancellationFee(absenceFee);
+        dailyStats.reservationChanged(before, DailyStatsService.contributionOf(reservation));
 
-        // Free up table
-        if (reservation.getTableId() != null) {
-            Table table = tableRepository.findById(reservation.getTableId()).orElse(null);
-            if (table != null) {
-                table.setStatus(TableStatus.AVAILABLE);
-                table.setCurrentReservationId(null);
-                tableRepository.save(table);
-            }
-        }
+        // Free up tables
+        releaseTables(reservation, TableStatus.AVAILABLE);
 
         System.out.println("Marked reservation " + reservationId + " as NO_SHOW. Absence fee: " + absenceFee + "€");
         return reservationRepository.save(reservation);
     }
 
+    /**
+     * Mark all overdue reservations as no-show in one transaction with set-based statements
+     * (one SELECT, one UPDATE for the reservations incl. absence fee, one UPDATE for their tables,
+     * one statistics update per restaurant and day)
+     * @return number of reservations marked as NO_SHOW
+     */
+    @Transactional
+    public int markOverdueAsNoShow() {
+        // Stored as is (microseconds), so the rows of this update can be found by it
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<ReservationSummary> overdue = reservationRepository.findPotentialNoShowSummaries(now.minusMinutes(ReservationDeadlines.NO_SHOW_AFTER_MINUTES));
+        if (overdue.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = overdue.stream().map(ReservationSummary::getId).toList();
+        int marked = reservationRepository.markNoShows(ids, NO_SHOW_FEE_PER_GUEST, now);
+        if (marked < ids.size()) {
+            // Some were checked in or changed in the meantime (possibly to NO_SHOW by hand):
+            // only count and release the ones this update changed
+            List<Long> updated = reservationRepository.findIdsUpdatedTo(ids, ReservationStatus.NO_SHOW, now);
+            Set<Long> updatedIds = new HashSet<>(updated);
+            overdue = overdue.stream().filter(r -> updatedIds.contains(r.getId())).toList();
+            ids = updated;
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<DailyStatsService.Contribution> before = new ArrayList<>();
+        List<DailyStatsService.Contribution> after = new ArrayList<>();
+        List<Long> tableIds = new ArrayList<>();
+        for (ReservationSummary reservation : overdue) {
+            DailyStatsService.Contribution contribution = DailyStatsService.contributionOf(reservation);
+            before.add(contribution);
+            after.add(contribution.asNoShow(
+                    NO_SHOW_FEE_PER_GUEST.multiply(BigDecimal.valueOf(reservation.getNumberOfGuests()))));
+            tableIds.addAll(reservation.getAssignedTableIds());
+            releaseBookingAfterCommit(reservation.getId(), reservation.getRestaurantId(),
+                    reservation.getTableId() != null, reservation.getReservationDateTime(),
+                    reservation.getDurationMinutes());
+        }
+        int releasedTables = tableIds.isEmpty() ? 0 : tableRepository.releaseTables(tableIds, ids, TableStatus.AVAILABLE);
+        dailyStats.reservationsChanged(before, after);
+
+        System.out.println("Marked " + marked + " reservations as NO_SHOW, released " + releasedTables + " tables");
+        return marked;
+    }
+
     /**
      * Find potential no-shows (CONFIRMED but 15+ min past reservation time without check-in)
      */
@@ -391,6 +786,41 @@ public class ResService {
         return reservationRepository.findTimeoutCandidates(cutoffTime);
     }
 
+    /**
+     * Potential no-shows as list rows (for the overview)
+     */
+    public List<ReservationSummary> getPotentialNoShowSummaries() {
+        return reservationRepository.findPotentialNoShowSummaries(LocalDateTime.now().minusMinutes(15));
+    }
+
+    /**
+     * Timeout candidates as list rows
+     */
+    public List<ReservationSummary> getTimeoutCandidateSummaries() {
+        return reservationRepository.findTimeoutCandidateSummaries(LocalDateTime.now().minusMinutes(120));
+    }
+
+    /**
+     * Give all reservations checked in for more than 2 hours a timeout warning with one UPDATE
+     * @return number of reservations marked with TIMEOUT_WARNING
+     */
+    @Transactional
+    public int markDueTimeoutWarnings() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = reservationRepository.findTimeoutCandidateSummaries(
+                        now.minusMinutes(ReservationDeadlines.TIMEOUT_AFTER_MINUTES)).stream()
+                .map(ReservationSummary::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        int marked = reservationRepository.markTimeoutWarnings(ids, now);
+        runAfterCommit(() -> ids.forEach(deadlines::cancel));
+        System.out.println("Marked " + marked + " reservations with TIMEOUT_WARNING");
+        return marked;
+    }
+
     /**
      * Mark reservation with timeout warning
      */
@@ -398,24 +828,59 @@ public class ResService {
     public Reservation markTimeoutWarning(Long reservationId) {
         Reservation reservation = getReservationById(reservationId);
         reservation.setStatus(ReservationStatus.TIMEOUT_WARNING);
+        runAfterCommit(() -> deadlines.cancel(reservationId));
         System.out.println("Marked reservation " + reservationId + " with TIMEOUT_WARNING");
         return reservationRepository.save(reservation);
     }
 
+    /**
+     * Check if a table is free for the given time window (in-memory lookup)
+     */
+    public boolean isTableAvailable(Long tableId, LocalDateTime startTime, LocalDateTime endTime) {
+        Table table = tableRepository.findById(tableId)
+                .orElseThrow(() -> new RuntimeException("Table not found: " + tableId));
+        return availabilityIndex.isTableAvailable(table.getRestaurantId(), tableId, startTime, endTime);
+    }
+
+    /**
+     * Compare the in-memory availability calendar with the reservations table
+     * @return IDs of tables whose calendar differs from the database
+     */
+    public List<Long> verifyAvailabilityCalendar() {
+        return availabilityIndex.verifyAgainstDatabase();
+    }
+
+    /**
+     * Find all bookable start times for a party over a range of days
+     * @return start times per day, computed from the in-memory calendar
+     */
+    public Map<LocalDate, List<LocalTime>> findFreeSlots(Long restaurantId, int numberOfGuests,
+                                                         LocalDate from, int days, int durationMinutes) {
+        return freeSlotSearch.findFreeSlots(restaurantId, numberOfGuests, from, days, durationMinutes);
+    }
+
+    /**
+     * Rebuild the in-memory availability calendar from the reservations table
+     */
+    public void rebuildAvailabilityCalendar() {
+        availabilityIndex.rebuild();
+        System.out.println("Rebuilt availability calendar with " + availabilityIndex.size() + " bookings");
+    }
+
     /**
      * Get active reservations (currently checked in)
      */
-    public List<Reservation> getActiveReservations() {
-        return reservationRepository.findActiveReservations();
+    public List<ReservationSummary> getActiveReservations() {
+        return reservationRepository.findSummariesByStatus(ReservationStatus.CHECKED_IN);
     }
 
     /**
      * Get reservations by status
      */
-    public List<Reservation> getReservationsByStatus(String status) {
+    public List<ReservationSummary> getReservationsByStatus(String status) {
         try {
             ReservationStatus statusEnum = ReservationStatus.valueOf(status.toUpperCase());
-            return reservationRepository.findByStatus(statusEnum);
+            return reservationRepository.findSummariesByStatus(statusEnum);
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid reservation status: " + status);
         }
@@ -428,17 +893,13 @@ public class ResService {
     public void deleteReservation(Long id) {
         Reservation reservation = getReservationById(id);
 
-        // Free up table if assigned
-        if (reservation.getTableId() != null) {
-            Table table = tableRepository.findById(reservation.getTableId()).orElse(null);
-            if (table != null) {
-                table.setStatus(TableStatus.AVAILABLE);
-                table.setCurrentReservationId(null);
-                tableRepository.save(table);
-            }
-        }
+        // Free up tables if assigned
+        releaseTables(reservation, TableStatus.AVAILABLE);
 
+        changeFeed.recordDeletions(List.of(id));
+        dailyStats.reservationDeleted(reservation);
         reservationRepository.deleteById(id);
+        releaseBookingAfterCommit(reservation);
         System.out.println("Deleted reservation: " + id);
     }
 }
@@ -0,0 +1,90 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.model.ReservationChanges;
+import at.htlle.reap.model.ReservationSummary;
+import at.htlle.reap.repository.ReservationRepository;
+import at.htlle.reap.repository.ReservationTombstoneRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Delta sync for reservation consumers (e.g. the waiter tablets): changes are found through the
+ * indexed updated_at column, removals through tombstones, so a poll costs as much as the number of changes.
+ *
+ * The returned watermark lags behind the current time by reap.sync.safety-lag-seconds: a transaction that
+ * set updated_at shortly before but commits after the read is still picked up by the next poll.
+ * Rows inside the lag window may be sent twice, clients apply changes idempotently (by ID).
+ */
+@Service
+public class ReservationChangeFeed {
+
+    private final ReservationRepository reservationRepository;
+    private final ReservationTombstoneRepository tombstoneRepository;
+    private final JobLeases jobLeases;
+    private final int safetyLagSeconds;
+    private final int tombstoneRetentionDays;
+
+    @Autowired
+    public ReservationChangeFeed(ReservationRepository reservationRepository,
+                                 ReservationTombstoneRepository tombstoneRepository,
+                                 JobLeases jobLeases,
+                                 @Value("${reap.sync.safety-lag-seconds:5}") int safetyLagSeconds,
+                                 @Value("${reap.sync.tombstone-retention-days:7}") int tombstoneRetentionDays) {
+        this.reservationRepository = reservationRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.jobLeases = jobLeases;
+        this.safetyLagSeconds = safetyLagSeconds;
+        this.tombstoneRetentionDays = tombstoneRetentionDays;
+    }
+
+    /**
+     * Changes since the watermark of the previous call.
+     * Without a watermark, or with one older than the tombstone retention, all reservations are returned.
+     */
+    @Transactional(readOnly = true)
+    public ReservationChanges getChanges(LocalDateTime since) {
+        // Taken before reading, so nothing that commits during the read is skipped by the next poll
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime watermark = now.minusSeconds(safetyLagSeconds);
+
+        if (since == null || since.isBefore(now.minusDays(tombstoneRetentionDays))) {
+            return new ReservationChanges(reservationRepository.findAllSummaries(), List.of(), watermark, true);
+        }
+
+        List<ReservationSummary> changed = reservationRepository.findSummariesChangedSince(since);
+        List<Long> deleted = tombstoneRepository.findIdsDeletedSince(since);
+        return new ReservationChanges(changed, deleted, watermark, false);
+    }
+
+    /**
+     * Leave tombstones for reservations that are about to be removed from the reservations table.
+     * Must run in the removing transaction, before the delete.
+     */
+    public void recordDeletions(Collection<Long> reservationIds) {
+        if (!reservationIds.isEmpty()) {
+            tombstoneRepository.recordDeletions(reservationIds, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Drop tombstones older than the retention period (clients that old get a full resync instead),
+     * on one node of the cluster
+     */
+    @Scheduled(cron = "0 15 3 * * *")
+    public void pruneTombstones() {
+        jobLeases.runExclusive("prune-tombstones", Duration.ofMinutes(10), Duration.ofHours(1), () -> {
+            int pruned = tombstoneRepository.deleteOlderThan(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+            if (pruned > 0) {
+                System.out.println("Pruned " + pruned + " reservation tombstones");
+            }
+        });
+    }
+}
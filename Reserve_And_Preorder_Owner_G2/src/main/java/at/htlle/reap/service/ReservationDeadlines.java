@@ -0,0 +1,224 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.ReservationSummary;
+import at.htlle.reap.repository.ReservationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Deadlines of open reservations, held in memory in a DelayQueue:
+ * the no-show deadline (reservation time + 15 min) of a confirmed reservation and
+ * the timeout deadline (check-in + 120 min) of a checked-in one.
+ * A worker thread sleeps until the next deadline is due, so transitions happen on time
+ * and the database is only queried when something is due. Deadlines whose handler did not run
+ * (lease held elsewhere, error) are due again after RETRY_AFTER.
+ * The reservations themselves are stored in the database, so the deadlines are rebuilt from there on startup.
+ */
+@Component
+public class ReservationDeadlines {
+
+    public static final int NO_SHOW_AFTER_MINUTES = 15;
+    public static final int TIMEOUT_AFTER_MINUTES = 120;
+
+    // Delay before due deadlines are handled again when their handler could not run
+    public static final Duration RETRY_AFTER = Duration.ofSeconds(5);
+
+    // How long stop waits for the worker to finish the deadlines it is handling
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(5);
+
+    public enum Kind {
+        NO_SHOW,
+        TIMEOUT
+    }
+
+    private final ReservationRepository reservationRepository;
+
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+
+    // reservationId -> its pending deadline (a reservation has at most one);
+    // cancelled or replaced deadlines stay in the queue and are skipped when they come due
+    private final Map<Long, Deadline> pending = new ConcurrentHashMap<>();
+
+    // Running worker thread; a worker that is no longer this one ends its loop
+    private volatile Thread worker;
+
+    @Autowired
+    public ReservationDeadlines(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Load the deadlines of all confirmed and checked-in reservations.
+     * Deadlines that passed while the service was down are due immediately.
+     */
+    @PostConstruct
+    public void load() {
+        pending.clear();
+        queue.clear();
+        for (ReservationSummary reservation : reservationRepository.findSummariesByStatus(ReservationStatus.CONFIRMED)) {
+            if (reservation.getCheckedInAt() == null) {
+                scheduleNoShow(reservation.getId(), reservation.getReservationDateTime());
+            }
+        }
+        for (ReservationSummary reservation : reservationRepository.findSummariesByStatus(ReservationStatus.CHECKED_IN)) {
+            if (reservation.getCheckedInAt() != null) {
+                scheduleTimeout(reservation.getId(), reservation.getCheckedInAt());
+            }
+        }
+        System.out.println("Reservation deadlines loaded: " + pending.size() + " pending");
+    }
+
+    /**
+     * Start the worker thread. It hands the kinds of all deadlines that came due together to the handler,
+     * which processes every overdue reservation of that kind in one go and returns the kinds it could not process.
+     */
+    public synchronized void start(Function<Set<Kind>, Set<Kind>> handler) {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(() -> run(handler), "reservation-deadlines");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stop the worker thread and wait (a few seconds at most) for a running handler to finish
+     */
+    public synchronized void stop() {
+        Thread stopping = worker;
+        if (stopping == null) {
+            return;
+        }
+        worker = null;
+        stopping.interrupt();
+        try {
+            stopping.join(STOP_TIMEOUT.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Function<Set<Kind>, Set<Kind>> handler) {
+        // Also ends if the handler swallowed the interrupt
+        while (worker == Thread.currentThread() && !Thread.currentThread().isInterrupted()) {
+            try {
+                List<Deadline> due = new ArrayList<>();
+                due.add(queue.take());
+                queue.drainTo(due);
+
+                List<Deadline> taken = new ArrayList<>();
+                Set<Kind> kinds = EnumSet.noneOf(Kind.class);
+                for (Deadline deadline : due) {
+                    if (pending.remove(deadline.reservationId, deadline)) {
+                        taken.add(deadline);
+                        kinds.add(deadline.kind);
+                    }
+                }
+                if (!kinds.isEmpty()) {
+                    Set<Kind> failed;
+                    try {
+                        failed = handler.apply(kinds);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error processing reservation deadlines: " + e.getMessage());
+                        failed = kinds;
+                    }
+                    retry(taken, failed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Put the deadlines of the kinds that were not processed back, unless the reservation got a new one meanwhile
+    private void retry(List<Deadline> taken, Set<Kind> failed) {
+        if (failed.isEmpty()) {
+            return;
+        }
+        LocalDateTime dueAt = LocalDateTime.now().plus(RETRY_AFTER);
+        int retried = 0;
+        for (Deadline deadline : taken) {
+            if (failed.contains(deadline.kind)) {
+                Deadline again = new Deadline(deadline.reservationId, deadline.kind, dueAt);
+                if (pending.putIfAbsent(deadline.reservationId, again) == null) {
+                    queue.put(again);
+                    retried++;
+                }
+            }
+        }
+        System.out.println("Deadlines " + failed + " not processed, retrying " + retried + " in " + RETRY_AFTER.toSeconds() + "s");
+    }
+
+    /**
+     * Confirmed reservation: becomes a no-show if not checked in 15 minutes after the reservation time
+     */
+    public void scheduleNoShow(Long reservationId, LocalDateTime reservationDateTime) {
+        schedule(new Deadline(reservationId, Kind.NO_SHOW, reservationDateTime.plusMinutes(NO_SHOW_AFTER_MINUTES)));
+    }
+
+    /**
+     * Checked-in reservation: gets a timeout warning 120 minutes after check-in (replaces the no-show deadline)
+     */
+    public void scheduleTimeout(Long reservationId, LocalDateTime checkedInAt) {
+        schedule(new Deadline(reservationId, Kind.TIMEOUT, checkedInAt.plusMinutes(TIMEOUT_AFTER_MINUTES)));
+    }
+
+    /**
+     * Drop the pending deadline of a reservation (cancelled, completed, no-show, warned, deleted)
+     */
+    public void cancel(Long reservationId) {
+        pending.remove(reservationId);
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public LocalDateTime getDeadline(Long reservationId) {
+        Deadline deadline = pending.get(reservationId);
+        return deadline != null ? deadline.dueAt : null;
+    }
+
+    private void schedule(Deadline deadline) {
+        pending.put(deadline.reservationId, deadline);
+        queue.put(deadline);
+    }
+
+    private static final class Deadline implements Delayed {
+
+        private final Long reservationId;
+        private final Kind kind;
+        private final LocalDateTime dueAt;
+
+        private Deadline(Long reservationId, Kind kind, LocalDateTime dueAt) {
+            this.reservationId = reservationId;
+            this.kind = kind;
+            this.dueAt = dueAt;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), dueAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return dueAt.compareTo(((Deadline) other).dueAt);
+        }
+    }
+}
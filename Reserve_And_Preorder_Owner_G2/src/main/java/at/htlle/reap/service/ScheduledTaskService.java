@@ -1,103 +1,149 @@
 package at.htlle.reap.service;
 
-import at.htlle.reap.model.Reservation;
+import at.htlle.reap.model.DailyStats;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Scheduled jobs. Jobs that change shared data run under a lease (see JobLeases),
+ * so with several Owner instances only one node runs them per tick.
+ */
 @Service
 public class ScheduledTaskService {
 
     private final ResService resService;
+    private final ReservationDeadlines deadlines;
+    private final DailyStatsService dailyStats;
+    private final JobLeases jobLeases;
 
     @Autowired
-    public ScheduledTaskService(ResService resService) {
+    public ScheduledTaskService(ResService resService, ReservationDeadlines deadlines, DailyStatsService dailyStats,
+                                JobLeases jobLeases) {
         this.resService = resService;
+        this.deadlines = deadlines;
+        this.dailyStats = dailyStats;
+        this.jobLeases = jobLeases;
     }
 
     /**
-     * Check for no-shows every minute
-     * Business Rule: Mark as NO_SHOW if reservation time + 15 minutes has passed without check-in
-     * Charge: 10€ per person
+     * No-shows and timeouts are processed when their deadline is due (see ReservationDeadlines),
+     * instead of polling the reservations table every minute.
+     * The worker starts once the application is ready and stops with the context.
      */
-    @Scheduled(fixedRate = 60000) // Every 60 seconds
-    public void checkNoShows() {
-        List<Reservation> potentialNoShows = resService.findPotentialNoShows();
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDeadlineWorker() {
+        deadlines.start(this::onDeadlinesDue);
+    }
 
-        if (!potentialNoShows.isEmpty()) {
-            System.out.println("⚠️ Found " + potentialNoShows.size() + " potential no-shows");
+    @PreDestroy
+    public void stopDeadlineWorker() {
+        deadlines.stop();
+    }
 
-            for (Reservation reservation : potentialNoShows) {
-                try {
-                    resService.markAsNoShow(reservation.getId());
-                    System.out.println("Marked reservation " + reservation.getId() + " as NO_SHOW");
+    // Returns the kinds that were not processed, the deadlines retry them shortly after
+    private Set<ReservationDeadlines.Kind> onDeadlinesDue(Set<ReservationDeadlines.Kind> kinds) {
+        Set<ReservationDeadlines.Kind> failed = EnumSet.noneOf(ReservationDeadlines.Kind.class);
+        if (kinds.contains(ReservationDeadlines.Kind.NO_SHOW) && !checkNoShows()) {
+            failed.add(ReservationDeadlines.Kind.NO_SHOW);
+        }
+        if (kinds.contains(ReservationDeadlines.Kind.TIMEOUT) && !checkTimeouts()) {
+            failed.add(ReservationDeadlines.Kind.TIMEOUT);
+        }
+        return failed;
+    }
 
-                    // TODO: Send email notification to customer
-                    // TODO: Send notification to restaurant staff
+    /**
+     * Catch-up for reservations whose state was changed without going through ResService
+     * (runs every hour, the deadlines handle the regular case)
+     */
+    @Scheduled(fixedRate = 3600000, initialDelay = 3600000) // Every hour
+    public void catchUpDeadlines() {
+        jobLeases.runExclusive("catch-up-deadlines", Duration.ofMinutes(10), Duration.ofMinutes(50), () -> {
+            checkNoShows();
+            checkTimeouts();
+        });
+    }
 
-                } catch (Exception e) {
-                    System.err.println("Error marking no-show for reservation " + reservation.getId() + ": " + e.getMessage());
-                }
-            }
+    /**
+     * Mark no-shows
+     * Business Rule: Mark as NO_SHOW if reservation time + 15 minutes has passed without check-in
+     * Charge: 10€ per person
+     * All overdue reservations are handled in one transaction with set-based statements.
+     * The lease is released right after the run: it only keeps two nodes from marking at the same time.
+     * @return false if the lease was held elsewhere or marking failed
+     */
+    public boolean checkNoShows() {
+        try {
+            return jobLeases.runExclusive("no-shows", Duration.ofMinutes(5), Duration.ZERO,
+                    resService::markOverdueAsNoShow);
+        } catch (Exception e) {
+            System.err.println("Error marking no-shows: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Check for timeouts every minute
+     * Mark timeouts
      * Business Rule: Warn if checked-in for more than 2 hours (120 minutes)
+     * @return false if the lease was held elsewhere or marking failed
      */
-    @Scheduled(fixedRate = 60000) // Every 60 seconds
-    public void checkTimeouts() {
-        List<Reservation> timeoutCandidates = resService.findTimeoutCandidates();
-
-        if (!timeoutCandidates.isEmpty()) {
-            System.out.println("⏰ Found " + timeoutCandidates.size() + " timeout candidates");
-
-            for (Reservation reservation : timeoutCandidates) {
-                try {
-                    // Only mark if not already warned
-                    if (reservation.getStatus().toString().equals("CHECKED_IN")) {
-                        resService.markTimeoutWarning(reservation.getId());
-                        System.out.println("Marked reservation " + reservation.getId() + " with TIMEOUT_WARNING");
-
-                        // TODO: Send notification to waiter
-                        // TODO: Send notification to customer
-                    }
-
-                } catch (Exception e) {
-                    System.err.println("Error marking timeout for reservation " + reservation.getId() + ": " + e.getMessage());
-                }
-            }
+    public boolean checkTimeouts() {
+        try {
+            return jobLeases.runExclusive("timeouts", Duration.ofMinutes(5), Duration.ZERO,
+                    resService::markDueTimeoutWarnings);
+        } catch (Exception e) {
+            System.err.println("Error marking timeouts: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Automatic table cleanup check (runs every 5 minutes)
-     * Sets tables from CLEANING to AVAILABLE after 15 minutes
+     * Consistency check of the availability calendar (runs every hour)
+     * Rebuilds the in-memory calendar from the database if it drifted
+     * (runs on every node without a lease: each node has its own calendar)
      */
-    @Scheduled(fixedRate = 300000) // Every 5 minutes
-    public void checkTableCleanup() {
-        // TODO: Implement when Table service has getTablesByStatus method
-        // This would automatically set tables from CLEANING to AVAILABLE after a delay
-        System.out.println("🧹 Table cleanup check (not yet implemented)");
+    @Scheduled(fixedRate = 3600000, initialDelay = 3600000) // Every hour
+    public void checkAvailabilityCalendar() {
+        List<Long> mismatches = resService.verifyAvailabilityCalendar();
+        if (!mismatches.isEmpty()) {
+            System.err.println("Availability calendar out of sync for tables " + mismatches + ", rebuilding");
+            resService.rebuildAvailabilityCalendar();
+        }
     }
 
     /**
-     * Daily summary report (runs at midnight)
+     * Daily summary report of the day that just ended (runs at midnight)
+     * Reads one rollup row per restaurant (see DailyStatsService)
      */
     @Scheduled(cron = "0 0 0 * * *")
     public void generateDailySummary() {
-        System.out.println("📊 Generating daily summary report...");
+        jobLeases.runExclusive("daily-summary", Duration.ofMinutes(10), Duration.ofHours(1), this::printDailySummary);
+    }
 
-        // TODO: Generate statistics
-        // - Total reservations today
-        // - No-shows count
-        // - Revenue
-        // - Average duration
-        // - Send email to owner
+    private void printDailySummary() {
+        LocalDate day = LocalDate.now().minusDays(1);
+        System.out.println("📊 Daily summary report for " + day);
+
+        for (DailyStats stats : dailyStats.getDailyStats(day)) {
+            System.out.println("Restaurant " + stats.getRestaurantId()
+                    + ": reservations " + stats.getBookings()
+                    + ", guests " + stats.getCovers()
+                    + ", no-shows " + stats.getNoShows() + " (" + stats.getNoShowFees() + "€)"
+                    + ", cancellations " + stats.getCancellations() + " (" + stats.getCancellationFees() + "€)"
+                    + ", revenue " + stats.getRevenue() + "€"
+                    + ", average duration " + stats.getAverageDwellMinutes() + " min");
+        }
 
-        System.out.println("Daily summary report completed");
+        // TODO: Send email to owner
     }
 }
@@ -0,0 +1,109 @@
+package at.htlle.reap.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Occupancy of a single table as fixed-width time slots.
+ * Each day is a bitset of 96 slots (15 minutes each) stored in two long words,
+ * so an overlap check is a few word-wise AND operations regardless of booking history.
+ * Intervals are rounded outwards to whole slots.
+ */
+public final class SlotCalendar {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final int WORDS_PER_DAY = (SLOTS_PER_DAY + 63) / 64;
+
+    // epochDay -> slot bitset of that day
+    private final Map<Long, long[]> days = new HashMap<>();
+
+    /**
+     * Mark all slots touched by [start, end) as occupied
+     */
+    public void mark(LocalDateTime start, LocalDateTime end) {
+        long from = firstSlot(start);
+        long to = endSlot(end);
+        for (long day = Math.floorDiv(from, SLOTS_PER_DAY); day <= Math.floorDiv(to - 1, SLOTS_PER_DAY); day++) {
+            long[] words = days.computeIfAbsent(day, d -> new long[WORDS_PER_DAY]);
+            for (int w = 0; w < WORDS_PER_DAY; w++) {
+                words[w] |= mask(day, w, from, to);
+            }
+        }
+    }
+
+    /**
+     * Check that no slot touched by [start, end) is occupied
+     */
+    public boolean isFree(LocalDateTime start, LocalDateTime end) {
+        long from = firstSlot(start);
+        long to = endSlot(end);
+        for (long day = Math.floorDiv(from, SLOTS_PER_DAY); day <= Math.floorDiv(to - 1, SLOTS_PER_DAY); day++) {
+            long[] words = days.get(day);
+            if (words == null) {
+                continue;
+            }
+            for (int w = 0; w < WORDS_PER_DAY; w++) {
+                if ((words[w] & mask(day, w, from, to)) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forget the occupancy of one day (used before re-marking it from the remaining bookings)
+     */
+    public void clearDay(LocalDate date) {
+        days.remove(date.toEpochDay());
+    }
+
+    /**
+     * Compare occupancy with another calendar, ignoring days without any occupied slot
+     */
+    public boolean sameOccupancy(SlotCalendar other) {
+        return occupiedDays().equals(other.occupiedDays());
+    }
+
+    private Map<Long, String> occupiedDays() {
+        Map<Long, String> result = new HashMap<>();
+        days.forEach((day, words) -> {
+            if (Arrays.stream(words).anyMatch(w -> w != 0)) {
+                result.put(day, Arrays.toString(words));
+            }
+        });
+        return result;
+    }
+
+    static long firstSlot(LocalDateTime time) {
+        return Math.floorDiv(epochMinutes(time), SLOT_MINUTES);
+    }
+
+    static long endSlot(LocalDateTime time) {
+        return Math.floorDiv(epochMinutes(time) + SLOT_MINUTES - 1, SLOT_MINUTES);
+    }
+
+    private static long epochMinutes(LocalDateTime time) {
+        return Math.floorDiv(Objects.requireNonNull(time).toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    // Bits of word w of the given day that fall into the absolute slot range [from, to)
+    private static long mask(long day, int word, long from, long to) {
+        long wordStart = day * SLOTS_PER_DAY + word * 64L;
+        long wordEnd = Math.min(wordStart + 64, (day + 1) * SLOTS_PER_DAY);
+        long lo = Math.max(from, wordStart);
+        long hi = Math.min(to, wordEnd);
+        if (lo >= hi) {
+            return 0L;
+        }
+        int width = (int) (hi - lo);
+        long bits = width == 64 ? -1L : (1L << width) - 1;
+        return bits << (lo - wordStart);
+    }
+}
@@ -0,0 +1,395 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.Reservation;
+import at.htlle.reap.repository.ReservationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory reservation calendar: booked time intervals per table plus a slot bitmap
+ * ({@link SlotCalendar}) that answers overlap checks.
+ * This is the availability source for allocation in {@link ResService}, which only confirms the chosen
+ * tables in the database (bookings of other nodes are not in this calendar);
+ * it can be rebuilt from and verified against the reservations table.
+ * Bookings are registered before their transaction commits, so concurrent allocations see them;
+ * until it completes, rebuild keeps their in-memory bookings and verify skips their tables.
+ */
+@Component
+public class TableAvailabilityIndex {
+
+    // Reservations in these states keep their table blocked for the reserved time window
+    public static final List<ReservationStatus> BLOCKING_STATUSES = List.of(
+            ReservationStatus.CONFIRMED,
+            ReservationStatus.CHECKED_IN,
+            ReservationStatus.TIMEOUT_WARNING
+    );
+
+    private final ReservationRepository reservationRepository;
+
+    // Source of change stamps; every rebuild and booking change takes a new, never reused value
+    private static final AtomicLong CHANGE_STAMPS = new AtomicLong();
+
+    // Bookings of the last LOAD_DAYS days and later are loaded (and verified); older ones can no longer collide
+    private static final int LOAD_DAYS = 1;
+
+    // Swapped as a whole on rebuild, so readers never see a half loaded calendar
+    private volatile State state = new State();
+
+    // reservationId -> number of open transactions that registered it (not committed or rolled back yet)
+    private final Map<Long, Integer> uncommitted = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TableAvailabilityIndex(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Load all bookings that can still block a table from the database
+     */
+    @PostConstruct
+    public void load() {
+        rebuild();
+        System.out.println("Table availability index loaded with " + size() + " bookings");
+    }
+
+    /**
+     * Throw away the in-memory calendar and rebuild it from the reservations table.
+     * Bookings of transactions that have not completed yet are taken over from the old calendar.
+     * Holds the lock during the load, so such a transaction cannot complete unnoticed in between.
+     */
+    public synchronized void rebuild() {
+        State loaded = loadFromDatabase(cutoff());
+        for (Long reservationId : uncommitted.keySet()) {
+            List<Booking> stale = loaded.bookings.remove(reservationId);
+            if (stale != null) {
+                stale.forEach(booking -> loaded.timeline(booking.restaurantId, booking.tableId).remove(booking));
+            }
+            List<Booking> pending = state.bookings.get(reservationId);
+            if (pending != null) {
+                loaded.add(reservationId, pending);
+            }
+        }
+        state = loaded;
+    }
+
+    /**
+     * Compare the in-memory calendar with a fresh load from the reservations table.
+     * Both sides cover the same bookings (start within the load window); tables with bookings
+     * of transactions that have not completed yet are skipped.
+     * @return IDs of tables whose bookings or occupied slots differ (empty if consistent)
+     */
+    public List<Long> verifyAgainstDatabase() {
+        LocalDateTime cutoff = cutoff();
+        State expected;
+        State actual = new State();
+        Set<Long> skipped = new HashSet<>();
+        synchronized (this) {
+            expected = loadFromDatabase(cutoff);
+            state.bookings.forEach((reservationId, bookings) -> {
+                if (!bookings.isEmpty() && bookings.get(0).start.isAfter(cutoff)) {
+                    actual.add(reservationId, bookings);
+                }
+            });
+            for (Long reservationId : uncommitted.keySet()) {
+                for (State side : List.of(expected, state)) {
+                    side.bookings.getOrDefault(reservationId, List.of())
+                            .forEach(booking -> skipped.add(booking.tableId));
+                }
+            }
+        }
+
+        Set<Long> tableIds = new HashSet<>();
+        expected.tables.values().forEach(tables -> tableIds.addAll(tables.keySet()));
+        actual.tables.values().forEach(tables -> tableIds.addAll(tables.keySet()));
+        tableIds.removeAll(skipped);
+
+        List<Long> mismatches = new ArrayList<>();
+        for (Long tableId : tableIds) {
+            if (!TableTimeline.sameBookings(expected.timelineOf(tableId), actual.timelineOf(tableId))) {
+                mismatches.add(tableId);
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * Add (or move) the booking of a reservation. Reservations without a table
+     * or in a non-blocking status are removed from the index instead.
+     */
+    public synchronized void register(Reservation reservation) {
+        release(reservation.getId());
+        trackUntilCompletion(reservation.getId());
+
+        if (reservation.getId() == null || reservation.getTableId() == null
+                || !BLOCKING_STATUSES.contains(reservation.getStatus())) {
+            return;
+        }
+        state.add(reservation.getId(), toBookings(reservation));
+    }
+
+    // Mark the reservation as uncommitted until the surrounding transaction completes
+    private void trackUntilCompletion(Long reservationId) {
+        if (reservationId == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        uncommitted.merge(reservationId, 1, Integer::sum);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Under the lock: waits for a running rebuild or verify, which still count it as uncommitted
+                synchronized (TableAvailabilityIndex.this) {
+                    uncommitted.computeIfPresent(reservationId, (id, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove the booking of a reservation (cancel, complete, no-show, delete)
+     */
+    public synchronized void release(Long reservationId) {
+        if (reservationId == null) {
+            return;
+        }
+        List<Booking> released = state.bookings.remove(reservationId);
+        if (released != null) {
+            for (Booking booking : released) {
+                state.timeline(booking.restaurantId, booking.tableId).remove(booking);
+                state.touch(booking);
+            }
+        }
+    }
+
+    /**
+     * Change stamp of a restaurant's day: differs from any earlier value once a booking
+     * touching that day was added or released, or the calendar was rebuilt.
+     * Lets derived caches (e.g. {@link FreeSlotSearch}) check if they are still current.
+     */
+    public long dayVersion(Long restaurantId, LocalDate day) {
+        State current = state;
+        Map<Long, Long> days = current.dayVersions.get(restaurantId);
+        Long version = days != null ? days.get(day.toEpochDay()) : null;
+        return version != null ? version : current.baseVersion;
+    }
+
+    /**
+     * Check if a table has no booking overlapping [start, end)
+     */
+    public boolean isTableAvailable(Long restaurantId, Long tableId, LocalDateTime start, LocalDateTime end) {
+        Map<Long, TableTimeline> tables = state.tables.get(restaurantId);
+        if (tables == null) {
+            return true;
+        }
+        TableTimeline timeline = tables.get(tableId);
+        return timeline == null || timeline.isFree(start, end);
+    }
+
+    /**
+     * Pick the first seating candidate with enough seats whose tables are all free for [start, end).
+     * Candidates are expected in order of preference (fewest wasted seats first).
+     */
+    public TableCombinationCache.Candidate findFreeCandidate(List<TableCombinationCache.Candidate> candidates,
+                                                             int numberOfGuests,
+                                                             LocalDateTime start, LocalDateTime end) {
+        for (TableCombinationCache.Candidate candidate : candidates) {
+            if (candidate.getCapacity() >= numberOfGuests && isFree(candidate, start, end)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check if all tables of a seating candidate are free for [start, end)
+     */
+    public boolean isFree(TableCombinationCache.Candidate candidate, LocalDateTime start, LocalDateTime end) {
+        for (Long tableId : candidate.getTableIds()) {
+            if (!isTableAvailable(candidate.getRestaurantId(), tableId, start, end)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of bookings currently held in memory
+     */
+    public int size() {
+        return state.bookings.size();
+    }
+
+    public static int effectiveDuration(Reservation reservation) {
+        return effectiveDuration(reservation.getDurationMinutes());
+    }
+
+    public static int effectiveDuration(int durationMinutes) {
+        return durationMinutes > 0 ? durationMinutes : 120;
+    }
+
+    private static LocalDateTime cutoff() {
+        return LocalDateTime.now().minusDays(LOAD_DAYS);
+    }
+
+    private State loadFromDatabase(LocalDateTime cutoff) {
+        List<Reservation> active = reservationRepository.findByStatusInAndReservationDateTimeAfter(
+                BLOCKING_STATUSES, cutoff);
+        State loaded = new State();
+        for (Reservation reservation : active) {
+            if (reservation.getTableId() != null) {
+                loaded.add(reservation.getId(), toBookings(reservation));
+            }
+        }
+        return loaded;
+    }
+
+    // One booking per table held by the reservation (combined tables are blocked together)
+    private static List<Booking> toBookings(Reservation reservation) {
+        LocalDateTime start = reservation.getReservationDateTime();
+        LocalDateTime end = start.plusMinutes(effectiveDuration(reservation));
+        List<Booking> result = new ArrayList<>();
+        for (Long tableId : reservation.getAssignedTableIds()) {
+            result.add(new Booking(reservation.getId(), reservation.getRestaurantId(), tableId, start, end));
+        }
+        return result;
+    }
+
+    /**
+     * All bookings held in memory
+     */
+    private static final class State {
+        // restaurantId -> (tableId -> booked intervals)
+        final Map<Long, Map<Long, TableTimeline>> tables = new ConcurrentHashMap<>();
+
+        // reservationId -> bookings, needed to release a reservation without reloading it
+        final Map<Long, List<Booking>> bookings = new ConcurrentHashMap<>();
+
+        // restaurantId -> (epochDay -> change stamp), days without changes since loading use baseVersion
+        final Map<Long, Map<Long, Long>> dayVersions = new ConcurrentHashMap<>();
+        final long baseVersion = CHANGE_STAMPS.incrementAndGet();
+
+        void add(Long reservationId, List<Booking> added) {
+            bookings.put(reservationId, added);
+            for (Booking booking : added) {
+                timeline(booking.restaurantId, booking.tableId).add(booking);
+                touch(booking);
+            }
+        }
+
+        void touch(Booking booking) {
+            Map<Long, Long> days = dayVersions.computeIfAbsent(booking.restaurantId, id -> new ConcurrentHashMap<>());
+            long version = CHANGE_STAMPS.incrementAndGet();
+            for (long day = booking.start.toLocalDate().toEpochDay();
+                 day <= booking.end.minusNanos(1).toLocalDate().toEpochDay(); day++) {
+                days.put(day, version);
+            }
+        }
+
+        TableTimeline timeline(Long restaurantId, Long tableId) {
+            return tables.computeIfAbsent(restaurantId, id -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(tableId, id -> new TableTimeline());
+        }
+
+        TableTimeline timelineOf(Long tableId) {
+            for (Map<Long, TableTimeline> timelines : tables.values()) {
+                TableTimeline timeline = timelines.get(tableId);
+                if (timeline != null) {
+                    return timeline;
+                }
+            }
+            return new TableTimeline();
+        }
+    }
+
+    /**
+     * Booked interval [start, end) of one reservation on one table
+     */
+    static final class Booking {
+        final Long reservationId;
+        final Long restaurantId;
+        final Long tableId;
+        final LocalDateTime start;
+        final LocalDateTime end;
+
+        Booking(Long reservationId, Long restaurantId, Long tableId, LocalDateTime start, LocalDateTime end) {
+            this.reservationId = reservationId;
+            this.restaurantId = restaurantId;
+            this.tableId = tableId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Bookings of one table as a sorted interval set (ordered by start time) plus their slot bitmap.
+     * Overlap checks only read the bitmap; the intervals are needed to re-mark days after a release,
+     * because legacy data may contain overlapping bookings sharing slots.
+     */
+    static final class TableTimeline {
+        private static final Comparator<Booking> BY_START =
+                Comparator.comparing((Booking b) -> b.start).thenComparing(b -> b.reservationId);
+
+        private final NavigableSet<Booking> intervals = new TreeSet<>(BY_START);
+        private final SlotCalendar slots = new SlotCalendar();
+        private long longestMinutes = 0;
+
+        synchronized void add(Booking booking) {
+            intervals.add(booking);
+            slots.mark(booking.start, booking.end);
+            longestMinutes = Math.max(longestMinutes, Duration.between(booking.start, booking.end).toMinutes());
+        }
+
+        synchronized void remove(Booking booking) {
+            if (!intervals.remove(booking)) {
+                return;
+            }
+            LocalDate firstDay = booking.start.toLocalDate();
+            LocalDate lastDay = booking.end.minusNanos(1).toLocalDate();
+            for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+                slots.clearDay(day);
+            }
+            Booking from = probe(firstDay.atStartOfDay().minusMinutes(longestMinutes));
+            Booking to = probe(lastDay.plusDays(1).atStartOfDay());
+            for (Booking other : intervals.subSet(from, true, to, false)) {
+                slots.mark(other.start, other.end);
+            }
+        }
+
+        synchronized boolean isFree(LocalDateTime start, LocalDateTime end) {
+            return slots.isFree(start, end);
+        }
+
+        static boolean sameBookings(TableTimeline a, TableTimeline b) {
+            synchronized (a) {
+                synchronized (b) {
+                    Set<Long> idsA = new HashSet<>();
+                    Set<Long> idsB = new HashSet<>();
+                    a.intervals.forEach(booking -> idsA.add(booking.reservationId));
+                    b.intervals.forEach(booking -> idsB.add(booking.reservationId));
+                    return idsA.equals(idsB) && a.slots.sameOccupancy(b.slots);
+                }
+            }
+        }
+
+        private static Booking probe(LocalDateTime start) {
+            return new Booking(Long.MIN_VALUE, null, null, start, null);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.TableStatus;
+import at.htlle.reap.model.Table;
+import at.htlle.reap.model.TableTurnaround;
+import at.htlle.reap.repository.TableRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Cleaning deadlines of tables: a table set to CLEANING becomes AVAILABLE again after the cleaning time
+ * of its restaurant (reap.cleaning.minutes.<restaurantId>, default reap.cleaning.default-minutes).
+ * The deadline is stored on the table (cleaning_until) and scheduled as a one-shot task per table,
+ * so no job has to scan the tables table. Deadlines are rescheduled from the database on startup.
+ * It also measures the turn-around of tables: from the guests leaving (OCCUPIED to another status)
+ * until the table is OCCUPIED again by the next check-in or walk-in.
+ */
+@Component
+public class TableCleaningSchedule {
+
+    private final TableRepository tableRepository;
+    private final TaskScheduler taskScheduler;
+    private final Environment environment;
+
+    // tableId -> scheduled end of cleaning
+    private final Map<Long, Cleaning> scheduled = new ConcurrentHashMap<>();
+
+    // tableId -> time the table was freed, until it is occupied again
+    private final Map<Long, LocalDateTime> freedAt = new ConcurrentHashMap<>();
+
+    // tableId -> turn-around statistics
+    private final Map<Long, TableTurnaround> turnarounds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TableCleaningSchedule(TableRepository tableRepository, TaskScheduler taskScheduler, Environment environment) {
+        this.tableRepository = tableRepository;
+        this.taskScheduler = taskScheduler;
+        this.environment = environment;
+    }
+
+    /**
+     * Schedule the end of cleaning of all tables that are being cleaned.
+     * Deadlines that passed while the service was down are due immediately;
+     * tables without a deadline (set to CLEANING before deadlines existed) get one from now.
+     */
+    @PostConstruct
+    public void load() {
+        for (Table table : tableRepository.findByStatus(TableStatus.CLEANING)) {
+            if (table.getCleaningUntil() == null) {
+                startCleaning(table);
+                tableRepository.save(table);
+            } else {
+                schedule(table.getId(), table.getCleaningUntil());
+            }
+        }
+        System.out.println("Table cleaning deadlines loaded: " + scheduled.size() + " tables in cleaning");
+    }
+
+    /**
+     * Set the status of a table, starting or ending its cleaning deadline and its turn-around as needed.
+     * The caller saves the table.
+     */
+    public void setStatus(Table table, TableStatus newStatus) {
+        TableStatus previous = table.getStatus();
+        table.setStatus(newStatus);
+        if (newStatus == TableStatus.CLEANING && previous != TableStatus.CLEANING) {
+            startCleaning(table);
+        } else if (newStatus != TableStatus.CLEANING && previous == TableStatus.CLEANING) {
+            endCleaning(table);
+        }
+
+        Long tableId = table.getId();
+        LocalDateTime now = LocalDateTime.now();
+        if (previous == TableStatus.OCCUPIED && newStatus != TableStatus.OCCUPIED) {
+            afterCommit(() -> freedAt.put(tableId, now));
+        } else if (newStatus == TableStatus.OCCUPIED && previous != TableStatus.OCCUPIED) {
+            afterCommit(() -> recordTurnaround(tableId, freedAt.remove(tableId), now));
+        }
+    }
+
+    /**
+     * Cleaning time of a restaurant in minutes
+     */
+    public int getCleaningMinutes(Long restaurantId) {
+        int defaultMinutes = environment.getProperty("reap.cleaning.default-minutes", Integer.class, 15);
+        return environment.getProperty("reap.cleaning.minutes." + restaurantId, Integer.class, defaultMinutes);
+    }
+
+    /**
+     * Turn-around statistics of all tables that were turned around since the last start
+     */
+    public List<TableTurnaround> getTurnarounds() {
+        List<TableTurnaround> result = new ArrayList<>(turnarounds.values());
+        result.sort(Comparator.comparing(TableTurnaround::getTableId));
+        return result;
+    }
+
+    public TableTurnaround getTurnaround(Long tableId) {
+        return turnarounds.getOrDefault(tableId, new TableTurnaround(tableId));
+    }
+
+    private void startCleaning(Table table) {
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime until = start.plusMinutes(getCleaningMinutes(table.getRestaurantId()));
+        table.setCleaningStartedAt(start);
+        table.setCleaningUntil(until);
+
+        // Inside a transaction the deadline only counts once the CLEANING status is committed
+        Long tableId = table.getId();
+        afterCommit(() -> schedule(tableId, until));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Cleaning ended early (table set to another status by hand). The task is only cancelled once the new
+    // status is committed; after a rollback the table is still CLEANING and its deadline still runs.
+    private void endCleaning(Table table) {
+        Long tableId = table.getId();
+        LocalDateTime until = table.getCleaningUntil();
+        afterCommit(() -> {
+            // A deadline scheduled in the meantime (cleaning started again) is kept
+            Cleaning cleaning = scheduled.get(tableId);
+            if (cleaning != null && (until == null || cleaning.until.equals(until))
+                    && scheduled.remove(tableId, cleaning)) {
+                cleaning.task.cancel(false);
+            }
+        });
+        table.setCleaningStartedAt(null);
+        table.setCleaningUntil(null);
+    }
+
+    private void schedule(Long tableId, LocalDateTime until) {
+        ScheduledFuture<?> task = taskScheduler.schedule(() -> finishCleaning(tableId, until),
+                until.atZone(ZoneId.systemDefault()).toInstant());
+        Cleaning previous = scheduled.put(tableId, new Cleaning(until, task));
+        if (previous != null) {
+            previous.task.cancel(false);
+        }
+    }
+
+    private void finishCleaning(Long tableId, LocalDateTime until) {
+        try {
+            // Skipped if the table was set to another status or got a new deadline in the meantime
+            if (tableRepository.finishCleaning(tableId, until) == 1) {
+                System.out.println("Table " + tableId + " cleaned, now AVAILABLE");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error finishing cleaning of table " + tableId + ": " + e.getMessage());
+        } finally {
+            scheduled.computeIfPresent(tableId, (id, cleaning) -> cleaning.until.equals(until) ? null : cleaning);
+        }
+    }
+
+    // Tables occupied without being freed since the last start have no turn-around to record
+    private void recordTurnaround(Long tableId, LocalDateTime freed, LocalDateTime occupied) {
+        if (freed != null) {
+            turnarounds.computeIfAbsent(tableId, TableTurnaround::new)
+                    .record(Duration.between(freed, occupied).toSeconds());
+        }
+    }
+
+    private static final class Cleaning {
+
+        private final LocalDateTime until;
+        private final ScheduledFuture<?> task;
+
+        private Cleaning(LocalDateTime until, ScheduledFuture<?> task) {
+            this.until = until;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.model.Table;
+import at.htlle.reap.repository.TableRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed seating candidates per restaurant: every single table plus every connected
+ * group of adjacent tables (see {@link Table#getAdjacentTableIds()}) up to MAX_COMBINED_TABLES.
+ * Candidates are sorted by total capacity, so the first free one with enough seats wastes the fewest seats.
+ */
+@Component
+public class TableCombinationCache {
+
+    // Largest number of tables pushed together for one party
+    public static final int MAX_COMBINED_TABLES = 4;
+
+    private final TableRepository tableRepository;
+
+    // restaurantId -> candidates sorted by capacity, then by number of tables
+    private final Map<Long, List<Candidate>> candidates = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TableCombinationCache(TableRepository tableRepository) {
+        this.tableRepository = tableRepository;
+    }
+
+    /**
+     * Get all seating candidates of a restaurant (built on first use)
+     */
+    public List<Candidate> getCandidates(Long restaurantId) {
+        return candidates.computeIfAbsent(restaurantId, id -> build(tableRepository.findByRestaurantId(id)));
+    }
+
+    /**
+     * Drop the cached candidates of a restaurant after its tables changed
+     */
+    public void invalidate(Long restaurantId) {
+        if (restaurantId != null) {
+            candidates.remove(restaurantId);
+        }
+    }
+
+    static List<Candidate> build(List<Table> tables) {
+        Map<Long, Table> byId = new LinkedHashMap<>();
+        for (Table table : tables) {
+            byId.put(table.getId(), table);
+        }
+
+        // Undirected adjacency graph: listing a neighbour on either table is enough
+        Map<Long, Set<Long>> neighbours = new HashMap<>();
+        for (Table table : tables) {
+            for (Long other : parseIds(table.getAdjacentTableIds())) {
+                if (byId.containsKey(other) && !other.equals(table.getId())) {
+                    neighbours.computeIfAbsent(table.getId(), id -> new HashSet<>()).add(other);
+                    neighbours.computeIfAbsent(other, id -> new HashSet<>()).add(table.getId());
+                }
+            }
+        }
+
+        // Grow connected groups one neighbour at a time, deduplicated by their sorted ID set
+        Set<TreeSet<Long>> groups = new HashSet<>();
+        List<TreeSet<Long>> frontier = new ArrayList<>();
+        for (Long id : byId.keySet()) {
+            TreeSet<Long> single = new TreeSet<>(Set.of(id));
+            groups.add(single);
+            frontier.add(single);
+        }
+        for (int size = 2; size <= MAX_COMBINED_TABLES; size++) {
+            List<TreeSet<Long>> next = new ArrayList<>();
+            for (TreeSet<Long> group : frontier) {
+                for (Long member : group) {
+                    for (Long neighbour : neighbours.getOrDefault(member, Set.of())) {
+                        if (!group.contains(neighbour)) {
+                            TreeSet<Long> grown = new TreeSet<>(group);
+                            grown.add(neighbour);
+                            if (groups.add(grown)) {
+                                next.add(grown);
+                            }
+                        }
+                    }
+                }
+            }
+            frontier = next;
+        }
+
+        List<Candidate> result = new ArrayList<>();
+        for (TreeSet<Long> group : groups) {
+            List<Long> ids = new ArrayList<>(group);
+            int capacity = ids.stream().mapToInt(id -> byId.get(id).getCapacity()).sum();
+            // Largest table first: it becomes the reservation's main table
+            ids.sort(Comparator.comparingInt((Long id) -> byId.get(id).getCapacity()).reversed()
+                    .thenComparing(id -> id));
+            result.add(new Candidate(byId.get(ids.get(0)).getRestaurantId(), ids, capacity));
+        }
+        result.sort(Comparator.comparingInt(Candidate::getCapacity)
+                .thenComparingInt(c -> c.getTableIds().size())
+                .thenComparing(c -> c.getTableIds().get(0)));
+        return List.copyOf(result);
+    }
+
+    static List<Long> parseIds(String ids) {
+        List<Long> result = new ArrayList<>();
+        if (ids == null || ids.isBlank()) {
+            return result;
+        }
+        for (String id : ids.split(",")) {
+            try {
+                if (!id.isBlank()) {
+                    result.add(Long.valueOf(id.trim()));
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring invalid adjacent table id: " + id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A single table or a group of adjacent tables that can seat one party
+     */
+    public static final class Candidate {
+        private final Long restaurantId;
+        private final List<Long> tableIds;
+        private final int capacity;
+
+        Candidate(Long restaurantId, List<Long> tableIds, int capacity) {
+            this.restaurantId = restaurantId;
+            this.tableIds = List.copyOf(tableIds);
+            this.capacity = capacity;
+        }
+
+        public Long getRestaurantId() {
+            return restaurantId;
+        }
+
+        public List<Long> getTableIds() {
+            return tableIds;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+    }
+}
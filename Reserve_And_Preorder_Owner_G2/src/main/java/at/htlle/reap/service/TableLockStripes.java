@@ -0,0 +1,60 @@
+package at.htlle.reap.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks keyed by table ID.
+ * Bookings for different tables run in parallel; two bookings competing for the same table
+ * are serialized between the availability re-check and the calendar update.
+ */
+@Component
+public class TableLockStripes {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public TableLockStripes() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Lock the stripes of all given tables. Stripes are always taken in ascending order,
+     * so bookings of overlapping table combinations cannot deadlock.
+     * @return handle that unlocks all stripes again (use with try-with-resources)
+     */
+    public Held lockAll(Collection<Long> tableIds) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Long tableId : tableIds) {
+            stripes.add(Math.floorMod(Long.hashCode(tableId), STRIPES));
+        }
+        for (Integer stripe : stripes) {
+            locks[stripe].lock();
+        }
+        return new Held(stripes);
+    }
+
+    /**
+     * Set of currently held stripes
+     */
+    public final class Held implements AutoCloseable {
+        private final TreeSet<Integer> stripes;
+
+        private Held(TreeSet<Integer> stripes) {
+            this.stripes = stripes;
+        }
+
+        @Override
+        public void close() {
+            for (Integer stripe : stripes.descendingSet()) {
+                locks[stripe].unlock();
+            }
+        }
+    }
+}
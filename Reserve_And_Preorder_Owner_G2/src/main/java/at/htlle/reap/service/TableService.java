@@ -2,8 +2,10 @@ package at.htlle.reap.service;
 
 import at.htlle.reap.enums.TableStatus;
 import at.htlle.reap.model.Table;
+import at.htlle.reap.model.TableTurnaround;
 import at.htlle.reap.repository.TableRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,10 +14,15 @@ import java.util.List;
 public class TableService {
 
     private final TableRepository tableRepository;
+    private final TableCombinationCache combinationCache;
+    private final TableCleaningSchedule cleaningSchedule;
 
     @Autowired
-    public TableService(TableRepository tableRepository) {
+    public TableService(TableRepository tableRepository, TableCombinationCache combinationCache,
+                        TableCleaningSchedule cleaningSchedule) {
         this.tableRepository = tableRepository;
+        this.combinationCache = combinationCache;
+        this.cleaningSchedule = cleaningSchedule;
     }
 
     // Table initialization removed - tables should be created manually via API
@@ -27,6 +34,13 @@ public class TableService {
         return tableRepository.findAll();
     }
 
+    /**
+     * Get up to limit tables with an ID greater than afterId, ordered by ID
+     */
+    public List<Table> getTablesAfter(long afterId, int limit) {
+        return tableRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     /**
      * Get table by ID
      */
@@ -61,7 +75,7 @@ public class TableService {
      */
     public Table updateTableStatus(Long tableId, TableStatus newStatus) {
         Table table = getTableById(tableId);
-        table.setStatus(newStatus);
+        cleaningSchedule.setStatus(table, newStatus);
         return tableRepository.save(table);
     }
 
@@ -69,7 +83,9 @@ public class TableService {
      * Create a new table
      */
     public Table createTable(Table table) {
-        return tableRepository.save(table);
+        Table saved = tableRepository.save(table);
+        combinationCache.invalidate(saved.getRestaurantId());
+        return saved;
     }
 
     /**
@@ -79,15 +95,30 @@ public class TableService {
         if (table.getId() == null) {
             throw new RuntimeException("Table ID must not be null for update");
         }
-        return tableRepository.save(table);
+        Table existing = tableRepository.findById(table.getId()).orElse(null);
+        if (existing != null) {
+            combinationCache.invalidate(existing.getRestaurantId());
+
+            // The cleaning deadline is kept unless the status changes
+            TableStatus newStatus = table.getStatus();
+            table.setStatus(existing.getStatus());
+            table.setCleaningStartedAt(existing.getCleaningStartedAt());
+            table.setCleaningUntil(existing.getCleaningUntil());
+            cleaningSchedule.setStatus(table, newStatus);
+        }
+        Table saved = tableRepository.save(table);
+        combinationCache.invalidate(saved.getRestaurantId());
+        return saved;
     }
 
     /**
      * Delete a table (returns boolean for controller compatibility)
      */
     public boolean deleteTable(Long id) {
-        if (tableRepository.existsById(id)) {
+        Table table = tableRepository.findById(id).orElse(null);
+        if (table != null) {
             tableRepository.deleteById(id);
+            combinationCache.invalidate(table.getRestaurantId());
             return true;
         }
         return false;
@@ -105,11 +136,25 @@ public class TableService {
      */
     public Table markAsAvailable(Long tableId) {
         Table table = getTableById(tableId);
-        table.setStatus(TableStatus.AVAILABLE);
+        cleaningSchedule.setStatus(table, TableStatus.AVAILABLE);
         table.setCurrentReservationId(null);
         return tableRepository.save(table);
     }
 
+    /**
+     * Turn-around statistics (freed until occupied again) of all tables
+     */
+    public List<TableTurnaround> getTurnarounds() {
+        return cleaningSchedule.getTurnarounds();
+    }
+
+    /**
+     * Turn-around statistics of one table
+     */
+    public TableTurnaround getTurnaround(Long tableId) {
+        return cleaningSchedule.getTurnaround(tableId);
+    }
+
     /**
      * Assign reservation to table
      * Validates that the table is not already assigned to a different reservation
@@ -130,7 +175,7 @@ public class TableService {
         }
         
         // Assign table to reservation
-        table.setStatus(TableStatus.RESERVED);
+        cleaningSchedule.setStatus(table, TableStatus.RESERVED);
         table.setCurrentReservationId(reservationId);
         return tableRepository.save(table);
     }
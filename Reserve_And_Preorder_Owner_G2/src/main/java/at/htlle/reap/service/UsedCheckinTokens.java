@@ -0,0 +1,117 @@
+package at.htlle.reap.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Check-in tokens that were used for a check-in, so a replayed scan is rejected without a database
+ * transaction. Tokens are kept by what they validated to (reservation, guest, expiry), not by their text,
+ * so another encoding of the same token (e.g. with Base64 padding) is rejected as well.
+ * A bloom filter answers "never used" for almost every new token; only its hits are confirmed in the
+ * exact set (key -> expiry), so there are no false rejections. Entries are kept until the token expires.
+ * The set is per node and starts empty, so a token used on another node or before a restart still goes
+ * to the database, which stays the source of truth.
+ */
+@Component
+public class UsedCheckinTokens {
+
+    // 2^20 bits (128 KB) and 7 hashes: about 1% false positives at 100,000 used tokens
+    private static final int FILTER_BITS = 1 << 20;
+    private static final int HASHES = 7;
+
+    // "reservationId:guestId:expiry" -> expiry (epoch second)
+    private final Map<String, Long> used = new ConcurrentHashMap<>();
+
+    // Replaced as a whole when expired tokens are pruned (bits cannot be removed from a bloom filter)
+    private volatile AtomicLongArray filter = new AtomicLongArray(FILTER_BITS / 64);
+
+    /**
+     * Check if a validated token was already used for a check-in and has not expired yet
+     */
+    public boolean isUsed(QRCodeService.ValidationResult token) {
+        String key = key(token);
+        if (!mightContain(filter, key)) {
+            return false;
+        }
+        Long expiresAt = used.get(key);
+        return expiresAt != null && Instant.now().getEpochSecond() <= expiresAt;
+    }
+
+    /**
+     * Remember a validated token once its reservation is checked in
+     */
+    public synchronized void markUsed(QRCodeService.ValidationResult token) {
+        String key = key(token);
+        used.put(key, token.getExpiresAt());
+        add(filter, key);
+    }
+
+    public int size() {
+        return used.size();
+    }
+
+    /**
+     * Drop expired tokens and rebuild the filter from the remaining ones (runs every hour)
+     * (runs on every node without a lease: each node has its own set)
+     */
+    @Scheduled(fixedRate = 3600000, initialDelay = 3600000) // Every hour
+    public synchronized void pruneExpired() {
+        long now = Instant.now().getEpochSecond();
+        if (!used.values().removeIf(expiresAt -> expiresAt < now)) {
+            return;
+        }
+        AtomicLongArray rebuilt = new AtomicLongArray(FILTER_BITS / 64);
+        for (String key : used.keySet()) {
+            add(rebuilt, key);
+        }
+        filter = rebuilt;
+        System.out.println("Used check-in tokens pruned, " + used.size() + " remaining");
+    }
+
+    // Guest 0 stands for the reservation token, like in the token itself
+    private static String key(QRCodeService.ValidationResult token) {
+        return token.getReservationId() + ":" + (token.getGuestId() != null ? token.getGuestId() : 0)
+                + ":" + token.getExpiresAt();
+    }
+
+    private static void add(AtomicLongArray bits, String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & (FILTER_BITS - 1);
+            long mask = 1L << bit;
+            bits.getAndUpdate(bit >>> 6, word -> word | mask);
+        }
+    }
+
+    private static boolean mightContain(AtomicLongArray bits, String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & (FILTER_BITS - 1);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 64-bit FNV-1a over the characters with a final mix; the two halves are the two base hashes
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
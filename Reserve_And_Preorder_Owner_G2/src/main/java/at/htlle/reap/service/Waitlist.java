@@ -0,0 +1,180 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.Reservation;
+import at.htlle.reap.repository.ReservationRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parties waiting for a table: PENDING reservations for which no table was free when they were made.
+ * Held in memory as one priority queue per restaurant and time slot (first come, first served;
+ * larger parties first for requests made at the same time).
+ * The reservations themselves are stored in the database, so the waitlist is rebuilt from there on startup.
+ */
+@Component
+public class Waitlist {
+
+    private static final Comparator<Entry> PRIORITY = Comparator
+            .comparing((Entry e) -> e.requestedAt)
+            .thenComparing(Comparator.comparingInt((Entry e) -> e.numberOfGuests).reversed())
+            .thenComparing(e -> e.reservationId);
+
+    private final ReservationRepository reservationRepository;
+
+    // restaurantId -> (slot start -> waiting parties of that slot)
+    private final Map<Long, NavigableMap<LocalDateTime, PriorityQueue<Entry>>> queues = new HashMap<>();
+
+    // reservationId -> entry, to remove a party without searching all queues
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // Longest waiting reservation, bounds the slot range that can overlap a freed time window
+    private long longestMinutes = 0;
+
+    @Autowired
+    public Waitlist(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    /**
+     * Load all waiting parties whose reservation time has not passed yet
+     */
+    @PostConstruct
+    public synchronized void load() {
+        queues.clear();
+        entries.clear();
+        longestMinutes = 0;
+        for (Reservation reservation : reservationRepository.findByStatusAndTableIdIsNullAndReservationDateTimeAfter(
+                ReservationStatus.PENDING, LocalDateTime.now())) {
+            add(reservation);
+        }
+        System.out.println("Waitlist loaded with " + entries.size() + " waiting parties");
+    }
+
+    /**
+     * Put a PENDING reservation without table on the waitlist
+     */
+    public synchronized void add(Reservation reservation) {
+        remove(reservation.getId());
+
+        LocalDateTime start = reservation.getReservationDateTime();
+        int duration = TableAvailabilityIndex.effectiveDuration(reservation);
+        LocalDateTime requestedAt = reservation.getCreatedAt() != null ? reservation.getCreatedAt() : LocalDateTime.now();
+        Entry entry = new Entry(reservation.getId(), reservation.getRestaurantId(), start, start.plusMinutes(duration),
+                reservation.getNumberOfGuests(), requestedAt);
+
+        entries.put(entry.reservationId, entry);
+        queues.computeIfAbsent(entry.restaurantId, id -> new TreeMap<>())
+                .computeIfAbsent(slotOf(start), slot -> new PriorityQueue<>(PRIORITY))
+                .add(entry);
+        longestMinutes = Math.max(longestMinutes, duration);
+    }
+
+    /**
+     * Take a reservation off the waitlist (promoted, cancelled, deleted or assigned manually)
+     */
+    public synchronized void remove(Long reservationId) {
+        Entry entry = reservationId != null ? entries.remove(reservationId) : null;
+        if (entry == null) {
+            return;
+        }
+        NavigableMap<LocalDateTime, PriorityQueue<Entry>> slots = queues.get(entry.restaurantId);
+        PriorityQueue<Entry> queue = slots.get(slotOf(entry.start));
+        queue.remove(entry);
+        if (queue.isEmpty()) {
+            slots.remove(slotOf(entry.start));
+        }
+    }
+
+    /**
+     * Waiting parties of a restaurant whose time window overlaps [start, end), best first.
+     * Parties whose reservation time has already passed are dropped.
+     */
+    public synchronized List<Entry> overlapping(Long restaurantId, LocalDateTime start, LocalDateTime end) {
+        NavigableMap<LocalDateTime, PriorityQueue<Entry>> slots = queues.get(restaurantId);
+        if (slots == null) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (PriorityQueue<Entry> expired : new ArrayList<>(slots.headMap(slotOf(now)).values())) {
+            for (Entry entry : new ArrayList<>(expired)) {
+                remove(entry.reservationId);
+            }
+        }
+
+        List<Entry> result = new ArrayList<>();
+        LocalDateTime firstSlot = slotOf(start.minusMinutes(longestMinutes));
+        for (PriorityQueue<Entry> queue : slots.subMap(firstSlot, true, end, false).values()) {
+            for (Entry entry : queue) {
+                if (entry.start.isBefore(end) && entry.end.isAfter(start)) {
+                    result.add(entry);
+                }
+            }
+        }
+        result.sort(PRIORITY);
+        return result;
+    }
+
+    /**
+     * Number of waiting parties
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static LocalDateTime slotOf(LocalDateTime time) {
+        int minute = time.getMinute() - time.getMinute() % SlotCalendar.SLOT_MINUTES;
+        return time.withMinute(minute).withSecond(0).withNano(0);
+    }
+
+    /**
+     * One waiting party
+     */
+    public static final class Entry {
+        private final Long reservationId;
+        private final Long restaurantId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int numberOfGuests;
+        private final LocalDateTime requestedAt;
+
+        Entry(Long reservationId, Long restaurantId, LocalDateTime start, LocalDateTime end,
+              int numberOfGuests, LocalDateTime requestedAt) {
+            this.reservationId = reservationId;
+            this.restaurantId = restaurantId;
+            this.start = start;
+            this.end = end;
+            this.numberOfGuests = numberOfGuests;
+            this.requestedAt = requestedAt;
+        }
+
+        public Long getReservationId() {
+            return reservationId;
+        }
+
+        public Long getRestaurantId() {
+            return restaurantId;
+        }
+
+        public LocalDateTime getStart() {
+            return start;
+        }
+
+        public int getNumberOfGuests() {
+            return numberOfGuests;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package at.htlle.reap.repository;
+
+import at.htlle.reap.enums.ReservationStatus;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs H2 EXPLAIN on the SQL of the reservation queries that are executed by the scheduler,
+ * on every booking, by the list views or by the delta sync, and fails if one of them scans the whole reservations table.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:queryplan;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "at.htlle.reap.repository.ReservationQueryPlanTest$SqlCapture"
+})
+class ReservationQueryPlanTest {
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void reservationQueriesUseAnIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("findPotentialNoShows", () -> reservationRepository.findPotentialNoShows(now));
+        queries.put("findTimeoutCandidates", () -> reservationRepository.findTimeoutCandidates(now));
+        queries.put("findActiveReservations", () -> reservationRepository.findActiveReservations());
+        queries.put("findByRestaurantIdAndStatus",
+                () -> reservationRepository.findByRestaurantIdAndStatus(1L, ReservationStatus.CONFIRMED));
+        queries.put("isTableAvailable", () -> reservationRepository.isTableAvailable(1L, now, now.plusHours(2)));
+        queries.put("findByStatusInAndReservationDateTimeAfter",
+                () -> reservationRepository.findByStatusInAndReservationDateTimeAfter(
+                        List.of(ReservationStatus.CONFIRMED, ReservationStatus.CHECKED_IN), now));
+        queries.put("findByStatusAndTableIdIsNullAndReservationDateTimeAfter",
+                () -> reservationRepository.findByStatusAndTableIdIsNullAndReservationDateTimeAfter(
+                        ReservationStatus.PENDING, now));
+        queries.put("findSummariesByCustomerId", () -> reservationRepository.findSummariesByCustomerId(1L));
+        queries.put("findSummariesByRestaurantId", () -> reservationRepository.findSummariesByRestaurantId(1L));
+        queries.put("findSummariesByStatus",
+                () -> reservationRepository.findSummariesByStatus(ReservationStatus.CHECKED_IN));
+        queries.put("findPotentialNoShowSummaries", () -> reservationRepository.findPotentialNoShowSummaries(now));
+        queries.put("findTimeoutCandidateSummaries", () -> reservationRepository.findTimeoutCandidateSummaries(now));
+        queries.put("findSummariesChangedSince", () -> reservationRepository.findSummariesChangedSince(now));
+        queries.put("streamSummaries", () -> transactionTemplate.executeWithoutResult(
+                status -> reservationRepository.streamSummaries(now, now.plusDays(30)).close()));
+
+        List<String> scans = new ArrayList<>();
+        SqlCapture.recordingThread = Thread.currentThread();
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            SqlCapture.STATEMENTS.clear();
+            query.getValue().run();
+            assertEquals(1, SqlCapture.STATEMENTS.size(), query.getKey() + " should run exactly one statement");
+
+            String plan = explain(SqlCapture.STATEMENTS.get(0));
+            if (plan.contains("RESERVATIONS.tableScan")) {
+                scans.add(query.getKey() + ":\n" + plan);
+            }
+        }
+        assertTrue(scans.isEmpty(), "Queries scanning the reservations table:\n" + String.join("\n\n", scans));
+    }
+
+    private String explain(String sql) {
+        // H2 plans a statement with unbound parameters, the plan does not depend on their values
+        return jdbcTemplate.query("EXPLAIN " + sql, rs -> {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1));
+            }
+            return plan.toString();
+        });
+    }
+
+    /**
+     * Records the SQL Hibernate sends to the database from the test thread (not from scheduled jobs)
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new ArrayList<>();
+        static volatile Thread recordingThread;
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == recordingThread) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.DailyStats;
+import at.htlle.reap.model.Reservation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dailystats;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class DailyStatsServiceTest {
+
+    private static final long RESTAURANT_ID = 66L;
+
+    @Autowired
+    private DailyStatsService dailyStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void writeThatTimesOutOnANewRowIsRetriedAfterCommit() throws Exception {
+        LocalDateTime day = LocalDateTime.now().plusDays(3).withHour(19).withMinute(0).withSecond(0).withNano(0);
+
+        // The first booking of the day creates its row and keeps the creation lock longer than the timeout
+        CountDownLatch rowWritten = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    dailyStatsService.reservationChanged(null, DailyStatsService.contributionOf(booking(day)));
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void beforeCommit(boolean readOnly) {
+                            rowWritten.countDown();
+                            await(commit);
+                        }
+                    });
+                }));
+        rowWritten.await();
+
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() ->
+                dailyStatsService.reservationChanged(null, DailyStatsService.contributionOf(booking(day))));
+        Thread.sleep(6000);
+        commit.countDown();
+        first.join();
+        second.join();
+
+        DailyStats stats = dailyStatsService.getDailyStats(day.toLocalDate()).stream()
+                .filter(row -> row.getRestaurantId() == RESTAURANT_ID)
+                .findFirst().orElseThrow();
+        assertEquals(2, stats.getBookings());
+        assertEquals(4, stats.getCovers());
+    }
+
+    private static Reservation booking(LocalDateTime day) {
+        Reservation reservation = new Reservation(1L, RESTAURANT_ID, day, 2);
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        return reservation;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.QRImageFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * QR images of a group per second against group size: one by one (as with one request per guest)
+ * against the parallel bulk rendering used by GET /api/qr/reservation/{id}/group.
+ * Every round uses new tokens, so nothing comes from the image cache.
+ * Only runs on request: mvn test -Dtest=GroupQRCodeBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GroupQRCodeBenchmarkTest {
+
+    private static final int[] GROUP_SIZES = {1, 10, 40, 100};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final String BASE_URL = "http://localhost:8083";
+
+    private final QRCodeService qrCodeService = new QRCodeService();
+
+    private long reservationId = 1;
+
+    @Test
+    void groupRenderingThroughputBySize() {
+        System.out.println("CPUs: " + Runtime.getRuntime().availableProcessors());
+        System.out.println("guests | serial ms | serial img/s | bulk ms | bulk img/s");
+        try {
+            for (int size : GROUP_SIZES) {
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    serial(urls(size));
+                    bulk(urls(size));
+                }
+                long[] serialNanos = new long[MEASURED_ROUNDS];
+                long[] bulkNanos = new long[MEASURED_ROUNDS];
+                for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                    serialNanos[i] = serial(urls(size));
+                    bulkNanos[i] = bulk(urls(size));
+                }
+                double serialMs = median(serialNanos) / 1e6;
+                double bulkMs = median(bulkNanos) / 1e6;
+                System.out.printf("%6d | %9.2f | %12.0f | %7.2f | %10.0f%n",
+                        size, serialMs, size / (serialMs / 1000), bulkMs, size / (bulkMs / 1000));
+            }
+        } finally {
+            qrCodeService.shutdown();
+        }
+    }
+
+    private List<String> urls(int size) {
+        List<String> urls = new ArrayList<>(size);
+        for (String token : qrCodeService.generateCheckinTokens(reservationId++, size)) {
+            urls.add(qrCodeService.getCheckinUrl(BASE_URL, token));
+        }
+        return urls;
+    }
+
+    private long serial(List<String> urls) {
+        long start = System.nanoTime();
+        for (String url : urls) {
+            qrCodeService.getQRCodeImage(url);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long bulk(List<String> urls) {
+        long start = System.nanoTime();
+        assertEquals(urls.size(), qrCodeService.getQRCodeImages(urls, QRImageFormat.PNG, QRCodeService.DEFAULT_MODULE_SIZE).size());
+        return System.nanoTime() - start;
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,81 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.model.Reservation;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Latency of createGroupReservation against group size.
+ * Only runs on request: mvn test -Dtest=GroupReservationBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:groupbench;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class GroupReservationBenchmarkTest {
+
+    private static final int[] GROUP_SIZES = {1, 10, 40, 100, 200};
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 200;
+
+    @Autowired
+    private ResService resService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private int booking = 0;
+
+    @Test
+    void groupReservationLatencyBySize() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        System.out.println("guests | median ms | p95 ms | statements/booking");
+        for (int size : GROUP_SIZES) {
+            List<String> emails = new ArrayList<>();
+            for (int i = 1; i <= size; i++) {
+                emails.add("guest" + i + "@example.com");
+            }
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                book(emails);
+            }
+
+            statistics.clear();
+            long[] nanos = new long[MEASURED_ROUNDS];
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                Reservation saved = book(emails);
+                nanos[i] = System.nanoTime() - start;
+                assertEquals(size, saved.getGroupMembers().size());
+            }
+            double statements = (double) statistics.getPrepareStatementCount() / MEASURED_ROUNDS;
+
+            Arrays.sort(nanos);
+            System.out.printf("%6d | %9.3f | %6.3f | %18.1f%n",
+                    size, nanos[MEASURED_ROUNDS / 2] / 1e6, nanos[MEASURED_ROUNDS * 95 / 100] / 1e6, statements);
+        }
+    }
+
+    private Reservation book(List<String> emails) {
+        // Spread bookings over time so none of them competes for a slot
+        LocalDateTime start = LocalDateTime.now().plusDays(1).plusHours(3L * booking++);
+        return resService.createGroupReservation(new Reservation(1L, 1L, start, emails.size()), emails);
+    }
+}
@@ -0,0 +1,126 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.ReserveAndPreorderChefG2Application;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two Owner instances in one JVM, sharing one database
+ */
+class JobLeasesTest {
+
+    private static final int TICKS = 20;
+    private static final Duration TICK_LEASE = Duration.ofMillis(200);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(ReserveAndPreorderChefG2Application.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:leases;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.jpa.show-sql=false",
+                        "--reap.node-id=" + nodeId);
+    }
+
+    @Test
+    void exactlyOneNodeRunsEachTick() throws Exception {
+        JobLeases a = nodeA.getBean(JobLeases.class);
+        JobLeases b = nodeB.getBean(JobLeases.class);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int tick = 0; tick < TICKS; tick++) {
+                // Both nodes fire the same tick of a job at the same moment, two threads each.
+                // The first tick races on creating the lease, the others on taking over the expired one.
+                AtomicInteger runs = new AtomicInteger();
+                CyclicBarrier start = new CyclicBarrier(4);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (JobLeases node : List.of(a, b, a, b)) {
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        return node.runExclusive("tick", Duration.ofMinutes(5), TICK_LEASE, runs::incrementAndGet);
+                    }));
+                }
+                int acquired = 0;
+                for (Future<Boolean> result : results) {
+                    acquired += result.get() ? 1 : 0;
+                }
+                assertEquals(1, runs.get(), "runs in tick " + tick);
+                assertEquals(1, acquired, "leases in tick " + tick);
+                Thread.sleep(TICK_LEASE.toMillis() + 100);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void leaseIsKeptForTheMinimumDuration() {
+        JobLeases a = nodeA.getBean(JobLeases.class);
+        JobLeases b = nodeB.getBean(JobLeases.class);
+
+        assertTrue(a.runExclusive("summary", Duration.ofMinutes(5), Duration.ofMinutes(1), () -> { }));
+        assertFalse(b.runExclusive("summary", Duration.ofMinutes(5), Duration.ofMinutes(1), () -> { }));
+        assertFalse(a.runExclusive("summary", Duration.ofMinutes(5), Duration.ofMinutes(1), () -> { }));
+
+        // Without a minimum duration the next run may start right away, on any node
+        assertTrue(a.runExclusive("no-shows", Duration.ofMinutes(5), Duration.ZERO, () -> { }));
+        assertTrue(b.runExclusive("no-shows", Duration.ofMinutes(5), Duration.ZERO, () -> { }));
+    }
+
+    @Test
+    void expiredLeaseOfADeadNodeIsTakenOver() throws Exception {
+        JobLeases a = nodeA.getBean(JobLeases.class);
+        JobLeases b = nodeB.getBean(JobLeases.class);
+        AtomicInteger runsOfB = new AtomicInteger();
+
+        // Node A hangs in the job longer than its lease
+        assertTrue(a.runExclusive("archive", Duration.ofMillis(300), Duration.ZERO, () -> {
+            assertFalse(b.runExclusive("archive", Duration.ofMinutes(5), Duration.ZERO, runsOfB::incrementAndGet));
+            sleep(600);
+            assertTrue(b.runExclusive("archive", Duration.ofMinutes(5), Duration.ofMinutes(1), runsOfB::incrementAndGet));
+        }));
+        assertEquals(1, runsOfB.get());
+
+        // The late release of A does not cut the lease B took over
+        assertFalse(a.runExclusive("archive", Duration.ofMinutes(5), Duration.ZERO, () -> { }));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
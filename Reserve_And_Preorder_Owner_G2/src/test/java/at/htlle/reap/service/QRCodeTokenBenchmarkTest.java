@@ -0,0 +1,125 @@
+package at.htlle.reap.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput and allocations of check-in token generation and validation:
+ * old text tokens with per-call Mac setup (as before the pooled signer) against QRCodeService,
+ * which issues binary version 2 tokens and still validates text tokens.
+ * Only runs on request: mvn test -Dtest=QRCodeTokenBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class QRCodeTokenBenchmarkTest {
+
+    private static final String SECRET_KEY = "reap-secret-key-change-in-production";
+    private static final int WARMUP_OPS = 200_000;
+    private static final int MEASURED_OPS = 500_000;
+    private static final int THREADS = 8;
+
+    private final QRCodeService qrCodeService = new QRCodeService();
+
+    @Test
+    void tokenThroughput() throws Exception {
+        String textToken = perCallGenerate(42L, 7L);
+        String token = qrCodeService.generateCheckinToken(42L, 7L);
+        assertTrue(perCallValidate(textToken));
+        assertTrue(qrCodeService.validateToken(textToken).isValid());
+        assertTrue(qrCodeService.validateToken(token).isValid());
+        System.out.println("token length: text " + textToken.length() + ", version 2 " + token.length());
+
+        System.out.println("operation            | threads | ops/s        | bytes/op");
+        report("generate per-call", i -> perCallGenerate(42L, i) != null);
+        report("generate v2", i -> qrCodeService.generateCheckinToken(42L, i) != null);
+        report("validate per-call", i -> perCallValidate(textToken));
+        report("validate text", i -> qrCodeService.validateToken(textToken).isValid());
+        report("validate v2", i -> qrCodeService.validateToken(token).isValid());
+    }
+
+    private void report(String name, LongPredicate operation) throws Exception {
+        run(operation, WARMUP_OPS);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long nanos = run(operation, MEASURED_OPS);
+        long bytesPerOp = (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / MEASURED_OPS;
+        System.out.printf("%-20s | %7d | %12.0f | %8d%n", name, 1, MEASURED_OPS / (nanos / 1e9), bytesPerOp);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> warmups = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                warmups.add(pool.submit(() -> run(operation, WARMUP_OPS / THREADS)));
+            }
+            for (Future<Long> warmup : warmups) {
+                warmup.get();
+            }
+            long start = System.nanoTime();
+            List<Future<Long>> runs = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                runs.add(pool.submit(() -> run(operation, MEASURED_OPS / THREADS)));
+            }
+            for (Future<Long> run : runs) {
+                run.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-20s | %7d | %12.0f |%n", name, THREADS, MEASURED_OPS / (elapsed / 1e9));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long run(LongPredicate operation, int ops) {
+        long start = System.nanoTime();
+        for (long i = 0; i < ops; i++) {
+            if (!operation.test(i)) {
+                throw new IllegalStateException("operation failed");
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Token generation with a new Mac per token (the implementation before the pooled signer)
+    private static String perCallGenerate(Long reservationId, Long guestId) {
+        long expiryTimestamp = LocalDateTime.now().plusDays(7).toEpochSecond(ZoneOffset.UTC);
+        String payload = reservationId + ":" + guestId + ":" + expiryTimestamp;
+        String tokenData = payload + ":" + perCallSignature(payload);
+        return Base64.getUrlEncoder().encodeToString(tokenData.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean perCallValidate(String token) {
+        String tokenData = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = tokenData.split(":");
+        if (LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) > Long.parseLong(parts[2])) {
+            return false;
+        }
+        return perCallSignature(parts[0] + ":" + parts[1] + ":" + parts[2]).equals(parts[3]);
+    }
+
+    private static String perCallSignature(String data) {
+        try {
+            Mac hmac = Mac.getInstance("HmacSHA256");
+            hmac.init(new SecretKeySpec(SECRET_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Base64.getUrlEncoder().encodeToString(hmac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
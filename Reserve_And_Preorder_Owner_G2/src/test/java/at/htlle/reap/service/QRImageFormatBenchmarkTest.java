@@ -0,0 +1,86 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.QRImageFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Encode time and payload size of the QR image formats for a check-in URL:
+ * the 300x300 RGB PNG (default, as before) against the 1-bit PNG and the SVG at several module sizes.
+ * Every round uses a new token, so nothing comes from the image cache.
+ * Only runs on request: mvn test -Dtest=QRImageFormatBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class QRImageFormatBenchmarkTest {
+
+    private static final int[] MODULE_SIZES = {1, 4, 8};
+    private static final int WARMUP_ROUNDS = 500;
+    private static final int MEASURED_ROUNDS = 500;
+    private static final String BASE_URL = "http://localhost:8083";
+
+    private final QRCodeService qrCodeService = new QRCodeService();
+
+    private long reservationId = 1;
+
+    @Test
+    void encodeTimeAndPayloadSizeByFormat() throws Exception {
+        System.out.println("format   | module | median us | bytes | base64 chars");
+        try {
+            report(QRImageFormat.PNG, QRCodeService.DEFAULT_MODULE_SIZE);
+            for (QRImageFormat format : new QRImageFormat[]{QRImageFormat.PNG_1BIT, QRImageFormat.SVG}) {
+                for (int moduleSize : MODULE_SIZES) {
+                    report(format, moduleSize);
+                }
+            }
+        } finally {
+            qrCodeService.shutdown();
+        }
+    }
+
+    @Test
+    void compactPngIsReadable() throws Exception {
+        String url = nextUrl();
+        byte[] png = qrCodeService.getQRCodeImage(url, QRImageFormat.PNG_1BIT, 2).getData();
+        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(
+                new BufferedImageLuminanceSource(ImageIO.read(new ByteArrayInputStream(png)))));
+        assertEquals(url, new QRCodeReader().decode(bitmap).getText());
+    }
+
+    private void report(QRImageFormat format, int moduleSize) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            qrCodeService.getQRCodeImage(nextUrl(), format, moduleSize);
+        }
+        long[] nanos = new long[MEASURED_ROUNDS];
+        int bytes = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            String url = nextUrl();
+            long start = System.nanoTime();
+            bytes = qrCodeService.getQRCodeImage(url, format, moduleSize).getData().length;
+            nanos[i] = System.nanoTime() - start;
+        }
+        String module = format == QRImageFormat.PNG ? "-" : String.valueOf(moduleSize);
+        System.out.printf("%-8s | %6s | %9.1f | %5d | %12d%n", format, module, median(nanos) / 1e3,
+                bytes, Base64.getEncoder().encodeToString(new byte[bytes]).length());
+    }
+
+    private String nextUrl() {
+        return qrCodeService.getCheckinUrl(BASE_URL, qrCodeService.generateCheckinTokens(reservationId++, 1).get(0));
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,189 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.DailyStats;
+import at.htlle.reap.model.Reservation;
+import at.htlle.reap.model.Table;
+import at.htlle.reap.repository.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:concurrency;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class ResServiceConcurrencyTest {
+
+    private static final long RESTAURANT_ID = 99L;
+    private static final int TABLES = 10;
+    private static final int BOOKINGS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private ResService resService;
+
+    @Autowired
+    private TableService tableService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private DailyStatsService dailyStatsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void parallelBookingsNeverDoubleBookATable() throws Exception {
+        for (int i = 1; i <= TABLES; i++) {
+            tableService.createTable(new Table(RESTAURANT_ID, "S" + i, 4));
+        }
+
+        // All bookings compete for a handful of overlapping evening slots
+        LocalDateTime evening = LocalDateTime.now().plusDays(1).withHour(18).withMinute(0).withSecond(0).withNano(0);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<Reservation>> results = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDateTime start = evening.plusMinutes(30L * (i % 8));
+            results.add(pool.submit(() -> resService.createReservation(
+                    new Reservation(1L, RESTAURANT_ID, start, 2))));
+        }
+        pool.shutdown();
+        for (Future<Reservation> result : results) {
+            result.get();
+        }
+
+        List<Reservation> confirmed = reservationRepository.findByRestaurantIdAndStatus(
+                RESTAURANT_ID, ReservationStatus.CONFIRMED);
+        assertFalse(confirmed.isEmpty());
+        assertEquals(BOOKINGS, reservationRepository.findByRestaurantId(RESTAURANT_ID).size());
+
+        Map<Long, List<Reservation>> byTable = confirmed.stream()
+                .collect(Collectors.groupingBy(Reservation::getTableId));
+        for (List<Reservation> bookings : byTable.values()) {
+            bookings.sort(Comparator.comparing(Reservation::getReservationDateTime));
+            for (int i = 1; i < bookings.size(); i++) {
+                Reservation previous = bookings.get(i - 1);
+                LocalDateTime previousEnd = previous.getReservationDateTime().plusMinutes(previous.getDurationMinutes());
+                assertFalse(bookings.get(i).getReservationDateTime().isBefore(previousEnd),
+                        "Table " + previous.getTableId() + " double-booked by reservations "
+                                + previous.getId() + " and " + bookings.get(i).getId());
+            }
+        }
+        assertTrue(resService.verifyAvailabilityCalendar().isEmpty());
+    }
+
+    @Test
+    void bulkNoShowSkipsReservationsMarkedByHandMeanwhile() throws Exception {
+        long restaurantId = 98L;
+        LocalDateTime overdue = LocalDateTime.now().minusMinutes(ReservationDeadlines.NO_SHOW_AFTER_MINUTES + 5);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Table table = tableService.createTable(new Table(restaurantId, "N" + i, 4));
+            Reservation reservation = new Reservation(1L, restaurantId, overdue, 2);
+            reservation.setTableId(table.getId());
+            reservation.setStatus(ReservationStatus.CONFIRMED);
+            ids.add(reservationRepository.save(reservation).getId());
+        }
+
+        // A waiter marks the first one by hand; the bulk run starts before that commits
+        CountDownLatch markedByHand = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> byHand = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    resService.markAsNoShow(ids.get(0));
+                    reservationRepository.flush();
+                    markedByHand.countDown();
+                    await(commit);
+                }));
+        markedByHand.await();
+        CompletableFuture<Integer> bulk = CompletableFuture.supplyAsync(resService::markOverdueAsNoShow);
+        Thread.sleep(500);
+        commit.countDown();
+        byHand.join();
+
+        assertEquals(2, bulk.join());
+        for (Long id : ids) {
+            assertEquals(ReservationStatus.NO_SHOW, reservationRepository.findById(id).orElseThrow().getStatus());
+        }
+        DailyStats stats = dailyStatsService.getDailyStats(overdue.toLocalDate()).stream()
+                .filter(row -> row.getRestaurantId() == restaurantId)
+                .findFirst().orElseThrow();
+        assertEquals(3, stats.getNoShows());
+        assertEquals(0, stats.getNoShowFees().compareTo(new BigDecimal("60")));
+    }
+
+    @Test
+    void bookingOfAnotherNodeIsSeenInTheDatabase() {
+        long restaurantId = 97L;
+        Table small = tableService.createTable(new Table(restaurantId, "O1", 2));
+        Table large = tableService.createTable(new Table(restaurantId, "O2", 6));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(20).withMinute(0).withSecond(0).withNano(0);
+
+        // Committed by another node: in the database, but not in this node's calendar
+        Reservation other = new Reservation(2L, restaurantId, start.minusMinutes(30), 2);
+        other.setTableId(small.getId());
+        other.setStatus(ReservationStatus.CONFIRMED);
+        reservationRepository.save(other);
+        assertTrue(resService.isTableAvailable(small.getId(), start, start.plusHours(2)));
+
+        Reservation booked = resService.createReservation(new Reservation(1L, restaurantId, start, 2));
+        assertEquals(large.getId(), booked.getTableId());
+
+        // Moving it onto the other node's table is refused as well
+        assertFalse(resService.updateReservationTable(booked.getId(), small.getId()));
+        assertEquals(large.getId(), reservationRepository.findById(booked.getId()).orElseThrow().getTableId());
+    }
+
+    @Test
+    void tableAssignmentIsRefusedWhileTheSlotIsTaken() {
+        long restaurantId = 96L;
+        Table first = tableService.createTable(new Table(restaurantId, "M1", 4));
+        Table second = tableService.createTable(new Table(restaurantId, "M2", 4));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(19).withMinute(0).withSecond(0).withNano(0);
+
+        Reservation early = resService.createReservation(new Reservation(1L, restaurantId, start, 2));
+        Reservation late = resService.createReservation(new Reservation(2L, restaurantId, start.plusMinutes(30), 2));
+        assertEquals(List.of(first.getId(), second.getId()), List.of(early.getTableId(), late.getTableId()));
+
+        assertFalse(resService.updateReservationTable(late.getId(), first.getId()));
+        assertEquals(second.getId(), reservationRepository.findById(late.getId()).orElseThrow().getTableId());
+
+        // Free again once the early reservation is cancelled
+        resService.cancelReservation(early.getId(), LocalDateTime.now());
+        assertTrue(resService.updateReservationTable(late.getId(), first.getId()));
+        assertEquals(first.getId(), reservationRepository.findById(late.getId()).orElseThrow().getTableId());
+        assertFalse(resService.isTableAvailable(first.getId(), start.plusMinutes(30), start.plusHours(2)));
+        assertTrue(resService.isTableAvailable(second.getId(), start.plusMinutes(30), start.plusHours(2)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
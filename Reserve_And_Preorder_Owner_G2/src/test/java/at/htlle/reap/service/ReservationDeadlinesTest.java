@@ -0,0 +1,111 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.Reservation;
+import at.htlle.reap.model.Table;
+import at.htlle.reap.repository.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:deadlines;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class ReservationDeadlinesTest {
+
+    private static final long RESTAURANT_ID = 77L;
+
+    @Autowired
+    private ReservationDeadlines deadlines;
+
+    @Autowired
+    private JobLeases jobLeases;
+
+    @Autowired
+    private TableService tableService;
+
+    @Autowired
+    private ScheduledTaskService scheduledTaskService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Test
+    void deadlineDueWhileTheLeaseIsHeldIsRetried() throws Exception {
+        Table table = tableService.createTable(new Table(RESTAURANT_ID, "D1", 4));
+
+        // No-show deadline due in one second
+        Reservation reservation = new Reservation(1L, RESTAURANT_ID,
+                LocalDateTime.now().minusMinutes(ReservationDeadlines.NO_SHOW_AFTER_MINUTES).plusSeconds(1), 2);
+        reservation.setTableId(table.getId());
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        Long id = reservationRepository.save(reservation).getId();
+
+        // Another run (e.g. the hourly catch-up or another node) holds the lease while the deadline comes due
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> jobLeases.runExclusive("no-shows", Duration.ofMinutes(5), Duration.ZERO, () -> {
+            held.countDown();
+            await(release);
+        }));
+        holder.start();
+        held.await();
+        deadlines.scheduleNoShow(id, reservation.getReservationDateTime());
+
+        Thread.sleep(2000);
+        assertEquals(ReservationStatus.CONFIRMED, status(id));
+        assertNotNull(deadlines.getDeadline(id), "deadline dropped while the lease was held");
+
+        release.countDown();
+        holder.join();
+
+        long until = System.currentTimeMillis() + ReservationDeadlines.RETRY_AFTER.toMillis() + 5000;
+        while (status(id) != ReservationStatus.NO_SHOW && System.currentTimeMillis() < until) {
+            Thread.sleep(100);
+        }
+        assertEquals(ReservationStatus.NO_SHOW, status(id));
+        assertNull(deadlines.getDeadline(id));
+    }
+
+    @Test
+    void stoppedWorkerThreadEnds() {
+        // Other cached test contexts run workers of their own
+        long running = workerThreads();
+        assertTrue(running >= 1, "worker not started with the context");
+
+        deadlines.stop();
+        assertEquals(running - 1, workerThreads());
+
+        scheduledTaskService.startDeadlineWorker();
+        assertEquals(running, workerThreads());
+    }
+
+    private static long workerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("reservation-deadlines") && thread.isAlive())
+                .count();
+    }
+
+    private ReservationStatus status(Long id) {
+        return reservationRepository.findById(id).orElseThrow().getStatus();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
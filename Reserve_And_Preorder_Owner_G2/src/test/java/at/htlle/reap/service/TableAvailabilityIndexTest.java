@@ -0,0 +1,61 @@
+package at.htlle.reap.service;
+
+import at.htlle.reap.enums.ReservationStatus;
+import at.htlle.reap.model.Reservation;
+import at.htlle.reap.model.Table;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:availability;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class TableAvailabilityIndexTest {
+
+    private static final long RESTAURANT_ID = 88L;
+
+    @Autowired
+    private ResService resService;
+
+    @Autowired
+    private TableService tableService;
+
+    @Autowired
+    private TableAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rebuildKeepsBookingsOfOpenTransactions() {
+        Table table = tableService.createTable(new Table(RESTAURANT_ID, "A1", 4));
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(19).withMinute(0).withSecond(0).withNano(0);
+
+        Reservation booked = new TransactionTemplate(transactionManager).execute(status -> {
+            Reservation reservation = resService.createReservation(new Reservation(1L, RESTAURANT_ID, start, 2));
+            assertEquals(ReservationStatus.CONFIRMED, reservation.getStatus());
+
+            // The hourly check runs on another thread while the booking is not committed yet
+            List<Long> mismatches = CompletableFuture.supplyAsync(availabilityIndex::verifyAgainstDatabase).join();
+            assertTrue(mismatches.isEmpty(), "uncommitted booking reported as mismatch: " + mismatches);
+            CompletableFuture.runAsync(availabilityIndex::rebuild).join();
+            return reservation;
+        });
+
+        assertEquals(table.getId(), booked.getTableId());
+        assertFalse(availabilityIndex.isTableAvailable(RESTAURANT_ID, table.getId(), start, start.plusHours(1)));
+        assertTrue(availabilityIndex.verifyAgainstDatabase().isEmpty());
+    }
+}
@@ -0,0 +1,59 @@
+package at.htlle.reap.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UsedCheckinTokensTest {
+
+    private final QRCodeService qrCodeService = new QRCodeService();
+    private final UsedCheckinTokens usedTokens = new UsedCheckinTokens();
+
+    @Test
+    void onlyUsedTokensAreRejected() {
+        List<String> tokens = qrCodeService.generateCheckinTokens(1L, 1000);
+        assertTrue(qrCodeService.validateToken(tokens.get(0)).getExpiresAt() > Instant.now().getEpochSecond());
+
+        for (int i = 0; i < tokens.size(); i += 2) {
+            usedTokens.markUsed(qrCodeService.validateToken(tokens.get(i)));
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals(i % 2 == 0, usedTokens.isUsed(qrCodeService.validateToken(tokens.get(i))), "token " + i);
+        }
+        qrCodeService.shutdown();
+    }
+
+    @Test
+    void otherEncodingOfAUsedTokenIsRejected() {
+        String token = qrCodeService.generateCheckinToken(2L, null);
+        usedTokens.markUsed(qrCodeService.validateToken(token));
+
+        // The Base64 decoder accepts the token with and without padding
+        String padded = token + "=".repeat((4 - token.length() % 4) % 4);
+        QRCodeService.ValidationResult replay = qrCodeService.validateToken(padded);
+        assertTrue(replay.isValid());
+        assertTrue(usedTokens.isUsed(replay));
+        qrCodeService.shutdown();
+    }
+
+    @Test
+    void expiredTokensArePruned() {
+        long now = Instant.now().getEpochSecond();
+        QRCodeService.ValidationResult expired = new QRCodeService.ValidationResult(true, 3L, null, "Valid", now - 1);
+        QRCodeService.ValidationResult valid = new QRCodeService.ValidationResult(true, 3L, 1L, "Valid", now + 60);
+        usedTokens.markUsed(expired);
+        usedTokens.markUsed(valid);
+        assertFalse(usedTokens.isUsed(expired));
+
+        usedTokens.pruneExpired();
+
+        assertEquals(1, usedTokens.size());
+        assertFalse(usedTokens.isUsed(expired));
+        assertTrue(usedTokens.isUsed(valid));
+    }
+}
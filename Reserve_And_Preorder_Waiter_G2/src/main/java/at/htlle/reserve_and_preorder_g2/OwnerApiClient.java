@@ -16,6 +16,10 @@ public class OwnerApiClient {
     private final RestTemplate restTemplate;
     private final String OWNER_API_BASE = "http://localhost:8083/api";
 
+    // List endpoints are paginated by ID; the header names the ID to continue after
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int PAGE_SIZE = 500;
+
     public OwnerApiClient() {
         this.restTemplate = new RestTemplate();
     }
@@ -24,13 +28,18 @@ public class OwnerApiClient {
 
     public List<ReservationDto> getAllReservations() {
         String url = OWNER_API_BASE + "/reservations";
-        ResponseEntity<List<ReservationDto>> response = restTemplate.exchange(
-                url,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<List<ReservationDto>>() {}
-        );
-        return response.getBody();
+        return fetchAllPages(url, new ParameterizedTypeReference<List<ReservationDto>>() {});
+    }
+
+    /**
+     * Reservations changed since the watermark of the previous call (null = all reservations)
+     */
+    public ReservationChangesDto getReservationChanges(String since) {
+        if (since == null) {
+            return restTemplate.getForObject(OWNER_API_BASE + "/reservations/changes", ReservationChangesDto.class);
+        }
+        return restTemplate.getForObject(OWNER_API_BASE + "/reservations/changes?since={since}",
+                ReservationChangesDto.class, since);
     }
 
     public List<ReservationDto> getActiveReservations() {
@@ -75,21 +84,32 @@ public class OwnerApiClient {
         return restTemplate.postForObject(url, request, ReservationDto.class);
     }
 
+    /**
+     * Load a paginated list endpoint completely by following the cursor header page by page
+     */
+    private <T> List<T> fetchAllPages(String url, ParameterizedTypeReference<List<T>> type) {
+        List<T> all = new java.util.ArrayList<>();
+        String cursor = null;
+        do {
+            String pageUrl = url + "?limit=" + PAGE_SIZE + (cursor != null ? "&afterId=" + cursor : "");
+            ResponseEntity<List<T>> response = restTemplate.exchange(pageUrl, HttpMethod.GET, null, type);
+            if (response.getBody() != null) {
+                all.addAll(response.getBody());
+            }
+            cursor = response.getHeaders().getFirst(NEXT_CURSOR_HEADER);
+        } while (cursor != null);
+        return all;
+    }
+
     // ============ Tables API ============
 
     public List<TableDto> getAllTables() {
         try {
             String url = OWNER_API_BASE + "/tables";
             System.out.println("Fetching tables from: " + url);
-            ResponseEntity<List<TableDto>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<TableDto>>() {}
-            );
-            List<TableDto> tables = response.getBody();
-            System.out.println("Fetched " + (tables != null ? tables.size() : 0) + " tables from Owner API");
-            return tables != null ? tables : new java.util.ArrayList<>();
+            List<TableDto> tables = fetchAllPages(url, new ParameterizedTypeReference<List<TableDto>>() {});
+            System.out.println("Fetched " + tables.size() + " tables from Owner API");
+            return tables;
         } catch (Exception e) {
             System.err.println("Error fetching tables from Owner API: " + e.getMessage());
             e.printStackTrace();
@@ -158,6 +178,7 @@ public class OwnerApiClient {
         public int numberOfGuests;
         public String status;
         public boolean isGroupReservation;
+        // Only filled by getReservation(id), list endpoints leave out the QR code
         public String qrCode;
         public double cancellationFee;
         public String checkedInAt;
@@ -165,6 +186,13 @@ public class OwnerApiClient {
         public String updatedAt;
     }
 
+    public static class ReservationChangesDto {
+        public List<ReservationDto> changed;
+        public List<Long> deleted;
+        public String watermark;
+        public boolean fullResync;
+    }
+
     public static class TableDto {
         public Long id;
         public Long restaurantId;
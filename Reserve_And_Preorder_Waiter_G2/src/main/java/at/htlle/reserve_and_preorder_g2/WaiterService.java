@@ -17,6 +17,10 @@ public class WaiterService {
     private final OwnerApiClient ownerApi;
     private final CookApiClient cookApi;
 
+    // Local copy of the Owner's reservations (by ID), kept current through the delta-sync endpoint
+    private final Map<Long, OwnerApiClient.ReservationDto> reservations = new TreeMap<>();
+    private String reservationWatermark;
+
     @Autowired
     public WaiterService(OwnerApiClient ownerApi, CookApiClient cookApi) {
         this.ownerApi = ownerApi;
@@ -38,9 +42,9 @@ public class WaiterService {
                 .collect(Collectors.toList());
         System.out.println("Converted to " + tables.size() + " waiter tables");
 
-        // Fetch ALL reservations to get currentReservationId for RESERVED tables
-        List<OwnerApiClient.ReservationDto> allReservations = ownerApi.getAllReservations();
-        System.out.println("Fetched " + allReservations.size() + " total reservations");
+        // All reservations (to get currentReservationId for RESERVED tables), only changes are transferred
+        List<OwnerApiClient.ReservationDto> allReservations = syncReservations();
+        System.out.println("Synced " + allReservations.size() + " total reservations");
 
         // Update currentReservationId from reservations that have tableId assigned
         for (OwnerApiClient.ReservationDto res : allReservations) {
@@ -75,6 +79,24 @@ public class WaiterService {
         return new WaiterStateDto(tables, orders);
     }
 
+    /**
+     * Apply the reservation changes since the last poll to the local copy
+     */
+    private synchronized List<OwnerApiClient.ReservationDto> syncReservations() {
+        OwnerApiClient.ReservationChangesDto changes = ownerApi.getReservationChanges(reservationWatermark);
+        if (changes.fullResync) {
+            reservations.clear();
+        }
+        for (OwnerApiClient.ReservationDto res : changes.changed) {
+            reservations.put(res.id, res);
+        }
+        for (Long id : changes.deleted) {
+            reservations.remove(id);
+        }
+        reservationWatermark = changes.watermark;
+        return new ArrayList<>(reservations.values());
+    }
+
     /**
      * Convert Owner API table to Waiter table DTO
      */
@@ -256,8 +278,10 @@ public class WaiterService {
     }
 
     /**
-     * Finish table (mark as available)
-     * Completes the active reservation on this table
+     * Finish table
+     * Completes the active reservation on this table; the Owner service then keeps the table
+     * in CLEANING and makes it available after the restaurant's cleaning time.
+     * A table without active reservation is marked available right away.
      */
     public boolean finishTable(Long tableId) {
         try {
@@ -271,10 +295,12 @@ public class WaiterService {
             // If there's an active reservation, complete it
             if (reservation != null) {
                 ownerApi.completeReservation(reservation.id);
-                System.out.println("Completed reservation " + reservation.id + " for table " + tableId);
+                System.out.println("Completed reservation " + reservation.id + " for table " + tableId
+                        + ", table is being cleaned");
+                return true;
             }
-            
-            // Always mark table as available
+
+            // No guests: mark table as available
             OwnerApiClient.TableDto result = ownerApi.markTableAvailable(tableId);
             if (result != null) {
                 System.out.println("Table " + tableId + " marked as AVAILABLE");